@@ -0,0 +1,115 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 응답 형식별 직렬화 비교 - JSON / Smile / CBOR / 컬럼형
+ * 조회는 Setup 에서 한번만 하고, 응답 객체를 HttpMessageConverter 로 쓰는 시간만 측정한다. (컨트롤러가 응답할 때와 같은 경로)
+ * - 응답 크기(바이트)는 Setup 에서 한번 출력한다.
+ * - 할당률(gc.alloc.rate.norm): gc 프로파일러 (build.gradle 의 jmh 설정)
+ *
+ * 실행: ./gradlew jmh -PjmhInclude=ApiFormatBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiFormatBenchmark {
+
+    @Param({"1000"})
+    public int orders;
+
+    @Param({"orders", "simpleOrders", "members"})
+    public String payload;
+
+    @Param({"json", "smile", "cbor", "columnar"})
+    public String format;
+
+    private BenchmarkContext context;
+    private Object body;
+    private HttpMessageConverter<Object> converter;
+    private MediaType mediaType;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = new BenchmarkContext(orders, 1000);
+        body = context.read(new SqlCounter(), () -> switch (payload) {
+            case "orders" -> context.getBean(OrderApiController.class).ordersV5();
+            case "simpleOrders" -> context.getBean(OrderSimpleApiController.class).ordersV3();
+            case "members" -> context.getBean(MemberApiController.class).membersV2();
+            default -> throw new IllegalArgumentException(payload);
+        });
+        converter = converter(format);
+        mediaType = converter.getSupportedMediaTypes().get(0);
+        System.out.printf("%n[%s/%s] %d bytes%n", payload, format, write().bytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long serialize() throws IOException {
+        return write().bytes;
+    }
+
+    private CountingOutputMessage write() throws IOException {
+        CountingOutputMessage out = new CountingOutputMessage();
+        converter.write(body, mediaType, out);
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private HttpMessageConverter<Object> converter(String format) {
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        HttpMessageConverter<?> converter = switch (format) {
+            case "json" -> new MappingJackson2HttpMessageConverter(objectMapper);
+            case "smile" -> context.getBean(MappingJackson2SmileHttpMessageConverter.class);
+            case "cbor" -> context.getBean(MappingJackson2CborHttpMessageConverter.class);
+            case "columnar" -> new ColumnarHttpMessageConverter(objectMapper, ApiFormatConfig.columnarSchemas());
+            default -> throw new IllegalArgumentException(format);
+        };
+        return (HttpMessageConverter<Object>) converter;
+    }
+
+    /** 바이트 수만 세고 버린다 */
+    static class CountingOutputMessage extends OutputStream implements HttpOutputMessage {
+        private final HttpHeaders headers = new HttpHeaders();
+        long bytes;
+
+        @Override
+        public OutputStream getBody() {
+            return this;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package jpabook.jpashop.api;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.JpashopApplication;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ * - 웹 서버 없이 jpashop 영속성 계층만 띄우고, 인메모리 H2 에 DataGenerator 로 데이터를 채운다.
+ * - SQL 로그는 끈다. (로그 출력이 측정값을 덮어버린다)
+ */
+class BenchmarkContext {
+
+    private final ConfigurableApplicationContext context;
+    private final TransactionTemplate readOnlyTx;
+    private final Statistics statistics;
+
+    BenchmarkContext(int orders, int batchFetchSize, String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                "spring.jpa.properties.hibernate.default_batch_fetch_size=" + batchFetchSize,
+                "spring.jpa.properties.hibernate.generate_statistics=true",
+                "jpashop.datagen.orders=" + orders,
+                "jpashop.datagen.members=" + Math.max(1, orders / 10),
+                "jpashop.datagen.items=100",
+                "logging.level.org.hibernate.SQL=warn",
+                "logging.level.org.hibernate.orm.jdbc.bind=warn",
+                "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn",
+                "decorator.datasource.p6spy.enable-logging=false",
+                "spring.main.banner-mode=off"));
+        properties.addAll(List.of(extraProperties));
+        context = new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("datagen")
+                .properties(properties.toArray(new String[0]))
+                .run();
+        readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * 읽기 전용 트랜잭션 안에서 실행 (지연 로딩이 필요한 V2, V3.1 때문에)
+     * 실행한 SQL 수를 counter 에 더한다.
+     */
+    <T> T read(SqlCounter counter, Supplier<T> action) {
+        long before = statistics.getPrepareStatementCount();
+        T result = readOnlyTx.execute(status -> action.get());
+        counter.statements += statistics.getPrepareStatementCount() - before;
+        return result;
+    }
+
+    void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,60 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberNameFilter;
+import jpabook.jpashop.service.MemberNameFilter.FilterStats;
+import jpabook.jpashop.service.MemberService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 대량 회원가입 - 블룸 필터 사용/미사용 비교
+ * 기존 회원(DataGenerator 의 member0..)이 있는 상태에서 새 이름으로 계속 가입한다. (1번 = 가입 1건, 트랜잭션 1개)
+ * - filter=false 면 가입마다 이름으로 DB 조회를 한다.
+ * - 끝나면 필터 통계(DB 조회 생략 수, 오탐률)를 출력한다.
+ *
+ * 실행: ./gradlew jmh -PjmhInclude=MemberJoinBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberJoinBenchmark {
+
+    @Param({"100000"})
+    public int orders; //회원 수는 orders / 10
+
+    @Param({"true", "false"})
+    public boolean filter;
+
+    private BenchmarkContext context;
+    private MemberService memberService;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(orders, 1000, "jpashop.member-filter.enabled=" + filter);
+        memberService = context.getBean(MemberService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FilterStats stats = context.getBean(MemberNameFilter.class).stats();
+        System.out.printf("%nfilter=%s checks=%d skipped=%d falsePositives=%d observedFpp=%.4f expectedFpp=%.4f%n",
+                filter, stats.getChecks(), stats.getNegatives(), stats.getFalsePositives(),
+                stats.getObservedFpp(), stats.getExpectedFpp());
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Long join() {
+        Member member = new Member();
+        member.setName("bench-member" + sequence.incrementAndGet());
+        return memberService.join(member);
+    }
+}
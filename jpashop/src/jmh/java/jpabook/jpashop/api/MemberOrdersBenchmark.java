@@ -0,0 +1,70 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.MemberService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원별 주문 내역 - 주문이 아주 많은 회원의 페이지 조회
+ * 회원 2명에게 주문을 몰아준다. (회원당 orders / 2 건)
+ * - first: 첫 페이지, deep: 중간쯤 커서에서 다음 페이지
+ * 두 경우 모두 (member_id, order_date desc, order_id desc) 인덱스에서 limit 건만 읽으므로 시간이 비슷해야 한다.
+ *
+ * 실행: ./gradlew jmh -PjmhInclude=MemberOrdersBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberOrdersBenchmark {
+
+    @Param({"200000"})
+    public int orders;
+
+    @Param({"20"})
+    public int limit;
+
+    private BenchmarkContext context;
+    private OrderQueryRepository orderQueryRepository;
+    private Long memberId;
+    private OrderCursor middle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(orders, 1000, "jpashop.datagen.members=2");
+        orderQueryRepository = context.getBean(OrderQueryRepository.class);
+        memberId = context.read(new SqlCounter(), () -> context.getBean(MemberService.class).findMembers().get(0).getId());
+        //중간 위치 커서: 절반쯤 건너뛴 주문
+        middle = context.read(new SqlCounter(), () -> {
+            OrderCursor cursor = null;
+            for (int i = 0; i < orders / 4 / 100; i++) {
+                List<OrderQueryDto> page = orderQueryRepository.findMemberOrders(memberId, cursor, 100);
+                OrderQueryDto last = page.get(page.size() - 1);
+                cursor = new OrderCursor(last.getOrderDate(), last.getOrderId());
+            }
+            return cursor;
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> first(SqlCounter counter) {
+        return context.read(counter, () -> orderQueryRepository.findMemberOrders(memberId, null, limit));
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> deep(SqlCounter counter) {
+        return context.read(counter, () -> orderQueryRepository.findMemberOrders(memberId, middle, limit));
+    }
+}
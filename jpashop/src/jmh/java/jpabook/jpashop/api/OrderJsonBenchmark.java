@@ -0,0 +1,88 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.service.OrderExportService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 목록 JSON 응답 만들기 비교 - V5(DTO + ObjectMapper) vs V7(ResultSet -> JsonGenerator)
+ * 조회부터 JSON 바이트를 다 쓸 때까지를 1번으로 측정한다. 출력은 버린다. (네트워크 제외)
+ * - 지연 분포(p50, p99): SampleTime 모드
+ * - 할당률(gc.alloc.rate.norm): gc 프로파일러 (build.gradle 의 jmh 설정)
+ *
+ * 실행: ./gradlew jmh -PjmhInclude=OrderJsonBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderJsonBenchmark {
+
+    @Param({"1000", "10000"})
+    public int orders;
+
+    private BenchmarkContext context;
+    private OrderApiController orderApi;
+    private OrderExportService orderExportService;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(orders, 1000);
+        orderApi = context.getBean(OrderApiController.class);
+        orderExportService = context.getBean(OrderExportService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long v5_dtoObjectMapper(SqlCounter counter) {
+        return context.read(counter, () -> {
+            CountingOutputStream out = new CountingOutputStream();
+            try {
+                objectMapper.writeValue(out, orderApi.ordersV5());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return out.bytes;
+        });
+    }
+
+    @Benchmark
+    public long v7_resultSetToJson(SqlCounter counter) {
+        return context.read(counter, () -> {
+            CountingOutputStream out = new CountingOutputStream();
+            try {
+                orderExportService.writeOrdersJson(out);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return out.bytes;
+        });
+    }
+
+    /** 바이트 수만 세고 버린다 (두 방식의 출력 크기가 같은지도 확인할 수 있다) */
+    static class CountingOutputStream extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 인기 상품 1개에 동시 주문 - 엔티티 방식(읽고-계산하고-쓰기)과 재고 선점 방식(조건부 UPDATE) 비교
+ * - entity: OrderService.order, 같은 item row 를 읽고 dirty checking 으로 쓴다. 갱신 손실, 락 타임아웃이 날 수 있다.
+ * - reservation: OrderService.orderWithReservation
+ * - 끝나면 성공/실패 수와 갱신 손실 수(성공한 주문 수와 실제 재고 감소량의 차이)를 출력한다.
+ *
+ * 실행: ./gradlew jmh -PjmhInclude=OrderPlacementBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderPlacementBenchmark {
+
+    private static final int STOCK = 100_000_000;
+
+    @Param({"entity", "reservation"})
+    public String mode;
+
+    private BenchmarkContext context;
+    private OrderService orderService;
+    private ItemService itemService;
+    private Long memberId;
+    private Long itemId;
+    private final AtomicLong success = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong(); //락 타임아웃 등
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(1000, 1000);
+        orderService = context.getBean(OrderService.class);
+        itemService = context.getBean(ItemService.class);
+        Member member = new Member();
+        member.setName("bench-orderer");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberId = context.getBean(MemberService.class).join(member);
+        Book book = new Book();
+        book.setName("bench-hot-item");
+        book.setPrice(10000);
+        book.setStockQuantity(STOCK);
+        itemService.saveItem(book);
+        itemId = book.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long decreased = STOCK - itemService.findOne(itemId).getStockQuantity();
+        System.out.printf("%nmode=%s success=%d failures=%d lostUpdates=%d%n",
+                mode, success.get(), failures.get(), success.get() - decreased);
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void order() {
+        try {
+            if (mode.equals("entity")) {
+                orderService.order(memberId, itemId, 1);
+            } else {
+                orderService.orderWithReservation(memberId, itemId, 1);
+            }
+            success.incrementAndGet();
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+        }
+    }
+}
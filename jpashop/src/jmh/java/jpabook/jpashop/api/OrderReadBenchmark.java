@@ -0,0 +1,115 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 주문 조회 전략(V2~V6) 비교
+ * 쿼리 + DTO 변환까지 (serialize=true 면 JSON 직렬화까지) 한번을 측정한다.
+ * - 처리량: ops/s
+ * - 할당률: gc 프로파일러 (build.gradle 의 jmh 설정)
+ * - SQL 수: statements (실행 1번당 = statements / ops)
+ * V1 은 엔티티를 그대로 JSON 으로 만들다가 양방향 연관관계에서 무한 루프가 나므로 제외한다.
+ *
+ * 실행: ./gradlew jmh -PjmhInclude=OrderReadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderReadBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int orders;
+
+    @Param({"1", "100", "1000"})
+    public int batchFetchSize;
+
+    @Param({"false", "true"})
+    public boolean serialize;
+
+    private BenchmarkContext context;
+    private OrderApiController orderApi;
+    private OrderSimpleApiController simpleOrderApi;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext(orders, batchFetchSize);
+        orderApi = context.getBean(OrderApiController.class);
+        simpleOrderApi = context.getBean(OrderSimpleApiController.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object simpleV2_entityLazy(SqlCounter counter) {
+        return read(counter, () -> simpleOrderApi.ordersV2());
+    }
+
+    @Benchmark
+    public Object simpleV3_entityFetchJoin(SqlCounter counter) {
+        return read(counter, () -> simpleOrderApi.ordersV3());
+    }
+
+    @Benchmark
+    public Object simpleV4_dto(SqlCounter counter) {
+        return read(counter, () -> simpleOrderApi.ordersV4());
+    }
+
+    @Benchmark
+    public Object v2_entityLazy(SqlCounter counter) {
+        return read(counter, () -> orderApi.ordersV2());
+    }
+
+    @Benchmark
+    public Object v3_collectionFetchJoin(SqlCounter counter) {
+        return read(counter, () -> orderApi.ordersV3());
+    }
+
+    @Benchmark
+    public Object v3_1_batchFetch(SqlCounter counter) {
+        return read(counter, () -> orderApi.ordersV3_page(0, orders));
+    }
+
+    @Benchmark
+    public Object v4_dtoNPlusOne(SqlCounter counter) {
+        return read(counter, () -> orderApi.ordersV4());
+    }
+
+    @Benchmark
+    public Object v5_dtoInQuery(SqlCounter counter) {
+        return read(counter, () -> orderApi.ordersV5());
+    }
+
+    @Benchmark
+    public Object v6_dtoFlat(SqlCounter counter) {
+        return read(counter, () -> orderApi.ordersV6());
+    }
+
+    private Object read(SqlCounter counter, Supplier<Object> strategy) {
+        return context.read(counter, () -> {
+            Object result = strategy.get();
+            return serialize ? toJson(result) : result;
+        });
+    }
+
+    private Object toJson(Object result) {
+        try {
+            return objectMapper.writeValueAsBytes(result);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
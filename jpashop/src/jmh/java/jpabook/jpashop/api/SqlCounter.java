@@ -0,0 +1,22 @@
+package jpabook.jpashop.api;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 벤치마크 결과에 SQL 실행 수(statements)를 같이 보여준다.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class SqlCounter {
+
+    public long statements;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        statements = 0;
+    }
+}
@@ -0,0 +1,210 @@
+package jpabook.jpashop;
+
+import jakarta.persistence.EntityManagerFactory;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.OrderSummaryService;
+import jpabook.jpashop.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 대용량 테스트 데이터 생성기 (spring.profiles.active=datagen)
+ * 회원 N명, 상품 M개, 주문 K건을 만든다. 주문 상품은 Zipf 분포를 따라서 일부 인기 상품에 몰린다.
+ * - StatelessSession 으로 영속성 컨텍스트 없이 insert 하고, JDBC 배치로 묶는다.
+ * - 범위를 파티션으로 나눠서 병렬로 실행한다. (파티션마다 세션/트랜잭션이 따로)
+ * - 상품 재고는 넉넉하게 잡고, 생성한 주문만큼 차감하지 않는다.
+ * 참고: 수천만 건을 만들 때는 org.hibernate.SQL, bind 로그와 p6spy 로그를 꺼야 제 속도가 난다.
+ */
+@Slf4j
+@Component
+@Profile("datagen")
+@RequiredArgsConstructor
+public class DataGenerator implements ApplicationRunner {
+
+    private final EntityManagerFactory emf;
+    private final OrderSummaryService orderSummaryService;
+    private final SalesRollupService salesRollupService;
+
+    @Value("${jpashop.datagen.members:10000}")
+    private int memberCount;
+    @Value("${jpashop.datagen.items:1000}")
+    private int itemCount;
+    @Value("${jpashop.datagen.orders:100000}")
+    private int orderCount;
+    @Value("${jpashop.datagen.partitions:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int partitions;
+    @Value("${jpashop.datagen.batch-size:1000}")
+    private int batchSize;
+    @Value("${jpashop.datagen.skew:1.0}")
+    private double skew; //Zipf 지수, 클수록 인기 상품에 더 몰린다 (0 이면 균등)
+
+    private static final int COMMIT_INTERVAL = 10_000;
+    private static final String[] CITIES = {"서울", "부산", "대구", "인천", "광주", "대전", "진주"};
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        SessionFactory sessionFactory = emf.unwrap(SessionFactory.class);
+        long start = System.currentTimeMillis();
+
+        long[] memberIds = new long[memberCount];
+        partitioned(sessionFactory, memberCount, (session, i, random) -> {
+            Member member = new Member();
+            member.setName("member" + i);
+            member.setAddress(address(i));
+            session.insert(member);
+            memberIds[i] = member.getId();
+        });
+
+        long[] itemIds = new long[itemCount];
+        int[] prices = new int[itemCount];
+        partitioned(sessionFactory, itemCount, (session, i, random) -> {
+            Book book = new Book();
+            book.setName("BOOK" + i);
+            book.setPrice(1000 + random.nextInt(50) * 1000);
+            book.setStockQuantity(1_000_000);
+            book.setAuthor("author" + i);
+            book.setIsbn(String.valueOf(1_000_000_000L + i));
+            session.insert(book);
+            itemIds[i] = book.getId();
+            prices[i] = book.getPrice();
+        });
+
+        ZipfSampler popularity = new ZipfSampler(itemCount, skew);
+        LocalDateTime now = LocalDateTime.now();
+        partitioned(sessionFactory, orderCount, (session, i, random) -> {
+            int memberIdx = random.nextInt(memberCount);
+            Delivery delivery = new Delivery();
+            delivery.setAddress(address(memberIdx));
+            delivery.setStatus(DeliveryStatus.READY);
+            session.insert(delivery);
+
+            Order order = new Order();
+            order.setMember(reference(memberIds[memberIdx]));
+            order.setDelivery(delivery);
+            order.setStatus(OrderStatus.ORDER);
+            order.setOrderDate(now.minusSeconds(random.nextInt(365 * 24 * 3600)));
+            session.insert(order);
+
+            int lines = 1 + random.nextInt(3);
+            for (int l = 0; l < lines; l++) {
+                int itemIdx = popularity.sample(random);
+                OrderItem orderItem = OrderItem.createReservedOrderItem(
+                        itemReference(itemIds[itemIdx]), prices[itemIdx], 1 + random.nextInt(5));
+                orderItem.setOrder(order);
+                session.insert(orderItem);
+            }
+        });
+
+        //StatelessSession 으로 넣은 주문은 요약, 매출 집계가 없으므로 한꺼번에 만든다
+        orderSummaryService.rebuild();
+        salesRollupService.backfill();
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("datagen done: members={}, items={}, orders={} in {} ms", memberCount, itemCount, orderCount, elapsed);
+    }
+
+    /**
+     * [0, total) 를 파티션으로 나눠서 병렬로 row 를 만든다.
+     */
+    private void partitioned(SessionFactory sessionFactory, int total, RowWriter writer) throws Exception {
+        int parts = Math.max(1, Math.min(partitions, total));
+        ExecutorService executor = Executors.newFixedThreadPool(parts);
+        try {
+            List<Future<?>> futures = new ArrayList<>(parts);
+            for (int p = 0; p < parts; p++) {
+                int from = (int) ((long) total * p / parts);
+                int to = (int) ((long) total * (p + 1) / parts);
+                long seed = p;
+                futures.add(executor.submit(() -> {
+                    writePartition(sessionFactory, from, to, new Random(seed), writer);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void writePartition(SessionFactory sessionFactory, int from, int to, Random random, RowWriter writer) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(batchSize);
+            Transaction tx = session.beginTransaction();
+            for (int i = from; i < to; i++) {
+                writer.write(session, i, random);
+                if ((i - from + 1) % COMMIT_INTERVAL == 0) {
+                    tx.commit();
+                    tx = session.beginTransaction();
+                }
+            }
+            tx.commit();
+        }
+    }
+
+    private Address address(int i) {
+        return new Address(CITIES[i % CITIES.length], String.valueOf(i % 1000), String.valueOf(10000 + i % 90000));
+    }
+
+    /** FK 용 참조 (id 만 채운 객체) */
+    private Member reference(long memberId) {
+        Member member = new Member();
+        member.setId(memberId);
+        return member;
+    }
+
+    private Book itemReference(long itemId) {
+        Book book = new Book();
+        book.setId(itemId);
+        return book;
+    }
+
+    @FunctionalInterface
+    interface RowWriter {
+        void write(StatelessSession session, int index, Random random);
+    }
+
+    /**
+     * Zipf 분포 샘플러 - 누적 확률을 미리 계산하고 이진 탐색
+     */
+    static class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int size, double exponent) {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int k = 0; k < size; k++) {
+                sum += 1.0 / Math.pow(k + 1, exponent);
+                cumulative[k] = sum;
+            }
+            for (int k = 0; k < size; k++) {
+                cumulative[k] /= sum;
+            }
+        }
+
+        int sample(Random random) {
+            int idx = Arrays.binarySearch(cumulative, random.nextDouble());
+            idx = idx >= 0 ? idx : -idx - 1;
+            return Math.min(idx, cumulative.length - 1);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.persistence.EntityManager;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,8 +17,12 @@ import org.springframework.transaction.annotation.Transactional;
  * * userB
  * 	 * SPRING1 BOOK
  * 	 * SPRING2 BOOK
+ *
+ * spring.profiles.active=init-db 일 때만 실행된다. (기본 기동 시에는 생략)
+ * 대용량 데이터가 필요하면 DataGenerator (datagen 프로파일) 참고
  */
 @Component
+@Profile("init-db")
 @RequiredArgsConstructor
 public class InitDb {
 
@@ -55,6 +60,7 @@ public class InitDb {
             Delivery delivery = createDelivery(member);
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
             em.persist(order);
+            em.persist(OrderSummary.of(order)); //조회용 요약
 
 
         }
@@ -75,6 +81,7 @@ public class InitDb {
             Delivery delivery = createDelivery(member);
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
             em.persist(order);
+            em.persist(OrderSummary.of(order)); //조회용 요약
         }
 
         private Member createMember(String name, String city, String street, String zipcode) {
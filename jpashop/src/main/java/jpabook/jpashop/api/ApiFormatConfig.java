@@ -0,0 +1,207 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * API 응답 형식 (Accept 헤더로 협상)
+ * - application/json                         : 기본
+ * - application/x-jackson-smile              : Smile (바이너리 JSON)
+ * - application/cbor                         : CBOR
+ * - application/vnd.jpashop.columnar         : 목록 응답을 컬럼형(struct of arrays)으로, ColumnarSchema 참고
+ *
+ * 주문/회원 목록 DTO 는 리플렉션 대신 직접 작성한 serializer 로 쓴다. (필드 순서, 모양은 기존 JSON 과 같다)
+ * 모듈을 빈으로 등록하면 스프링 부트가 기본 ObjectMapper 에 붙인다.
+ */
+@Configuration
+public class ApiFormatConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    public ApiFormatConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    //static: 기본 ObjectMapper 가 이 모듈을 먼저 필요로 한다 (이 설정 클래스는 ObjectMapper 를 주입받음)
+    @Bean
+    public static SimpleModule apiDtoModule() {
+        SimpleModule module = new SimpleModule("jpashop-api-dto");
+        module.addSerializer(OrderQueryDto.class, new OrderQueryDtoSerializer());
+        module.addSerializer(OrderItemQueryDto.class, new OrderItemQueryDtoSerializer());
+        module.addSerializer(OrderSimpleApiController.SimpleOrderDto.class, new SimpleOrderDtoSerializer());
+        module.addSerializer(MemberApiController.MemberDto.class, new MemberDtoSerializer());
+        return module;
+    }
+
+    //기본 Smile, CBOR 컨버터를 같은 모듈이 붙은 ObjectMapper 로 교체한다 (같은 타입이면 기본 컨버터 자리에 들어간다)
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * 컬럼형 컨버터는 맨 뒤에 둔다.
+     * 앞에 두면 Accept 가 와일드카드인 요청(브라우저, curl 기본값)에도 컬럼형이 먼저 골라진다.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ColumnarHttpMessageConverter(objectMapper, columnarSchemas()));
+    }
+
+    static Map<Class<?>, ColumnarSchema<?>> columnarSchemas() {
+        ColumnarSchema<OrderItemQueryDto> orderItem = new ColumnarSchema<OrderItemQueryDto>()
+                .column("itemName", OrderItemQueryDto::getItemName)
+                .column("orderPrice", OrderItemQueryDto::getOrderPrice)
+                .column("count", OrderItemQueryDto::getCount);
+        ColumnarSchema<OrderQueryDto> order = new ColumnarSchema<OrderQueryDto>()
+                .column("orderId", OrderQueryDto::getOrderId)
+                .column("name", OrderQueryDto::getName)
+                .column("orderDate", OrderQueryDto::getOrderDate)
+                .column("orderStatus", OrderQueryDto::getOrderStatus)
+                .column("city", o -> o.getAddress() == null ? null : o.getAddress().getCity())
+                .column("street", o -> o.getAddress() == null ? null : o.getAddress().getStreet())
+                .column("zipcode", o -> o.getAddress() == null ? null : o.getAddress().getZipcode())
+                .nested("orderItems", OrderQueryDto::getOrderItems, orderItem);
+        ColumnarSchema<OrderSimpleApiController.SimpleOrderDto> simpleOrder = new ColumnarSchema<OrderSimpleApiController.SimpleOrderDto>()
+                .column("orderId", OrderSimpleApiController.SimpleOrderDto::getOrderId)
+                .column("name", OrderSimpleApiController.SimpleOrderDto::getName)
+                .column("orderDate", OrderSimpleApiController.SimpleOrderDto::getOrderDate)
+                .column("orderStatus", OrderSimpleApiController.SimpleOrderDto::getOrderStatus)
+                .column("city", o -> o.getAddress() == null ? null : o.getAddress().getCity())
+                .column("street", o -> o.getAddress() == null ? null : o.getAddress().getStreet())
+                .column("zipcode", o -> o.getAddress() == null ? null : o.getAddress().getZipcode());
+        ColumnarSchema<MemberApiController.MemberDto> member = new ColumnarSchema<MemberApiController.MemberDto>()
+                .column("name", MemberApiController.MemberDto::getName);
+        return Map.of(
+                OrderQueryDto.class, order,
+                OrderSimpleApiController.SimpleOrderDto.class, simpleOrder,
+                MemberApiController.MemberDto.class, member);
+    }
+
+    static class OrderQueryDtoSerializer extends StdSerializer<OrderQueryDto> {
+        OrderQueryDtoSerializer() {
+            super(OrderQueryDto.class);
+        }
+
+        @Override
+        public void serialize(OrderQueryDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            writeNumberOrNull(gen, "orderId", dto.getOrderId());
+            gen.writeStringField("name", dto.getName());
+            provider.defaultSerializeField("orderDate", dto.getOrderDate(), gen); //날짜 형식은 ObjectMapper 설정을 따른다
+            writeStatus(gen, dto.getOrderStatus());
+            writeAddress(gen, dto.getAddress());
+            gen.writeFieldName("orderItems");
+            if (dto.getOrderItems() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartArray();
+                for (OrderItemQueryDto item : dto.getOrderItems()) {
+                    OrderItemQueryDtoSerializer.writeItem(item, gen);
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    //orderId 는 응답에서 뺀다 (@JsonIgnore 와 같게)
+    static class OrderItemQueryDtoSerializer extends StdSerializer<OrderItemQueryDto> {
+        OrderItemQueryDtoSerializer() {
+            super(OrderItemQueryDto.class);
+        }
+
+        @Override
+        public void serialize(OrderItemQueryDto item, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writeItem(item, gen);
+        }
+
+        static void writeItem(OrderItemQueryDto item, JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("itemName", item.getItemName());
+            gen.writeNumberField("orderPrice", item.getOrderPrice());
+            gen.writeNumberField("count", item.getCount());
+            gen.writeEndObject();
+        }
+    }
+
+    static class SimpleOrderDtoSerializer extends StdSerializer<OrderSimpleApiController.SimpleOrderDto> {
+        SimpleOrderDtoSerializer() {
+            super(OrderSimpleApiController.SimpleOrderDto.class);
+        }
+
+        @Override
+        public void serialize(OrderSimpleApiController.SimpleOrderDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            writeNumberOrNull(gen, "orderId", dto.getOrderId());
+            gen.writeStringField("name", dto.getName());
+            provider.defaultSerializeField("orderDate", dto.getOrderDate(), gen);
+            writeStatus(gen, dto.getOrderStatus());
+            writeAddress(gen, dto.getAddress());
+            gen.writeEndObject();
+        }
+    }
+
+    static class MemberDtoSerializer extends StdSerializer<MemberApiController.MemberDto> {
+        MemberDtoSerializer() {
+            super(MemberApiController.MemberDto.class);
+        }
+
+        @Override
+        public void serialize(MemberApiController.MemberDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("name", dto.getName());
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeNumberOrNull(JsonGenerator gen, String field, Long value) throws IOException {
+        if (value == null) {
+            gen.writeNullField(field);
+        } else {
+            gen.writeNumberField(field, value);
+        }
+    }
+
+    private static void writeStatus(JsonGenerator gen, OrderStatus status) throws IOException {
+        gen.writeStringField("orderStatus", status == null ? null : status.name());
+    }
+
+    private static void writeAddress(JsonGenerator gen, Address address) throws IOException {
+        gen.writeFieldName("address");
+        if (address == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject();
+        gen.writeStringField("city", address.getCity());
+        gen.writeStringField("street", address.getStreet());
+        gen.writeStringField("zipcode", address.getZipcode());
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,89 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.CategoryService;
+import jpabook.jpashop.service.CategoryTree;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+
+    private static final int MAX_ITEMS_LIMIT = 1000;
+
+    private final CategoryService categoryService;
+
+    /**
+     * 카테고리 전체 트리 (메모리, 쿼리 없음)
+     */
+    @GetMapping("/api/v1/categories")
+    public List<CategoryDto> categories() {
+        return categoryService.getTree().getRoots().stream()
+                .map(CategoryDto::new)
+                .collect(toList());
+    }
+
+    @PostMapping("/api/v1/categories")
+    public CreateCategoryResponse createCategory(@RequestBody CreateCategoryRequest request) {
+        return new CreateCategoryResponse(categoryService.create(request.getName(), request.getParentId()));
+    }
+
+    /**
+     * 카테고리와 모든 하위 카테고리의 상품 (쿼리 1번)
+     * limit 은 1 ~ MAX_ITEMS_LIMIT 으로 보정한다.
+     */
+    @GetMapping("/api/v1/categories/{categoryId}/items")
+    public List<CategoryItemDto> categoryItems(@PathVariable("categoryId") Long categoryId,
+                                               @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return categoryService.findItemsInSubtree(categoryId, Math.min(Math.max(limit, 1), MAX_ITEMS_LIMIT)).stream()
+                .map(CategoryItemDto::new)
+                .collect(toList());
+    }
+
+    @Data
+    static class CategoryDto {
+        private Long id;
+        private String name;
+        private List<CategoryDto> children;
+
+        public CategoryDto(CategoryTree.Node node) {
+            id = node.getId();
+            name = node.getName();
+            children = node.getChildren().stream()
+                    .map(CategoryDto::new)
+                    .collect(toList());
+        }
+    }
+
+    @Data
+    static class CreateCategoryRequest {
+        private String name;
+        private Long parentId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateCategoryResponse {
+        private Long id;
+    }
+
+    @Data
+    static class CategoryItemDto {
+        private Long itemId;
+        private String name;
+        private int price;
+
+        public CategoryItemDto(Item item) {
+            itemId = item.getId();
+            name = item.getName();
+            price = item.getPrice();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accept: application/vnd.jpashop.columnar 일 때 목록 응답을 컬럼형으로 쓴다. (쓰기 전용, 본문은 JSON)
+ * - 타입에 +json 을 붙이지 않는다. 붙이면 앞에 있는 Jackson 컨버터(application/*+json)가 먼저 가져가서 일반 JSON 으로 나간다.
+ * - List 응답, MemberApiController.Result 로 감싼 List 응답
+ * - 목록 원소 타입마다 ColumnarSchema 가 등록되어 있어야 한다.
+ *   컨트롤러 반환 타입(List<X>, Result<List<X>>)의 X 로 판단하므로, 스키마가 없거나 X 를 알 수 없으면 컬럼형을 내지 않는다. (406)
+ */
+public class ColumnarHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType COLUMNAR = new MediaType("application", "vnd.jpashop.columnar");
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ColumnarSchema<?>> schemas;
+
+    public ColumnarHttpMessageConverter(ObjectMapper objectMapper, Map<Class<?>, ColumnarSchema<?>> schemas) {
+        super(COLUMNAR);
+        this.objectMapper = objectMapper;
+        this.schemas = schemas;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz) || MemberApiController.Result.class == clazz;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        if (!canWrite(clazz, mediaType) || type == null) {
+            return false;
+        }
+        Class<?> elementType = elementType(type);
+        return elementType != null && schemas.containsKey(elementType);
+    }
+
+    //List<X> -> X, Result<List<X>> -> X, 알 수 없으면 null
+    @Nullable
+    private static Class<?> elementType(Type type) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        if (resolved.toClass() == MemberApiController.Result.class) {
+            resolved = resolved.getGeneric(0);
+        }
+        return List.class.isAssignableFrom(resolved.toClass()) ? resolved.asCollection().resolveGeneric(0) : null;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("columnar 형식은 읽을 수 없습니다.", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("columnar 형식은 읽을 수 없습니다.", inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        Object data = body instanceof MemberApiController.Result<?> result ? result.getData() : body;
+        if (!(data instanceof List<?> rows)) {
+            throw new HttpMessageNotWritableException("columnar 형식은 목록 응답만 지원합니다.");
+        }
+        ColumnarSchema<Object> schema = rows.isEmpty() ? new ColumnarSchema<>()
+                : (ColumnarSchema<Object>) schemas.get(rows.get(0).getClass());
+        if (schema == null) {
+            throw new HttpMessageNotWritableException("columnar 형식을 지원하지 않는 응답입니다: " + rows.get(0).getClass().getSimpleName());
+        }
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(outputMessage.getBody())) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            schema.write(gen, (List<Object>) rows);
+        }
+    }
+}
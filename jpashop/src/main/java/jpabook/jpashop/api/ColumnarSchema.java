@@ -0,0 +1,81 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 목록 응답의 컬럼형(struct of arrays) 레이아웃
+ * [{"a":1,"b":"x"},{"a":2,"b":"y"}] 대신 {"count":2,"columns":{"a":[1,2],"b":["x","y"]}} 로 쓴다.
+ * - 필드 이름이 row 마다 반복되지 않는다.
+ * - 중첩 목록(예: orderItems)은 자식 row 를 이어 붙이고, offsets 로 부모별 구간을 나타낸다.
+ *   부모 i 의 자식은 [offsets[i], offsets[i+1])
+ *   목록이 null 인 부모는 구간이 비고, nulls 에 부모 인덱스가 들어간다. (빈 목록과 구분)
+ * - 값은 getter 로 꺼내서 쓴다. (리플렉션 없음)
+ */
+public class ColumnarSchema<T> {
+
+    private final List<Column<T>> columns = new ArrayList<>();
+
+    public ColumnarSchema<T> column(String name, Function<T, ?> getter) {
+        columns.add((gen, rows) -> {
+            gen.writeArrayFieldStart(name);
+            for (T row : rows) {
+                gen.writeObject(getter.apply(row)); //String, 숫자, null 은 바로 쓰고 나머지(날짜 등)는 ObjectMapper 설정을 따른다
+            }
+            gen.writeEndArray();
+        });
+        return this;
+    }
+
+    public <C> ColumnarSchema<T> nested(String name, Function<T, List<C>> children, ColumnarSchema<C> childSchema) {
+        columns.add((gen, rows) -> {
+            List<C> flat = new ArrayList<>();
+            List<Integer> nulls = new ArrayList<>();
+            gen.writeObjectFieldStart(name);
+            gen.writeArrayFieldStart("offsets");
+            gen.writeNumber(0);
+            for (int i = 0; i < rows.size(); i++) {
+                List<C> list = children.apply(rows.get(i));
+                if (list != null) {
+                    flat.addAll(list);
+                } else {
+                    nulls.add(i);
+                }
+                gen.writeNumber(flat.size());
+            }
+            gen.writeEndArray();
+            gen.writeArrayFieldStart("nulls");
+            for (int i : nulls) {
+                gen.writeNumber(i);
+            }
+            gen.writeEndArray();
+            childSchema.writeColumns(gen, flat);
+            gen.writeEndObject();
+        });
+        return this;
+    }
+
+    public void write(JsonGenerator gen, List<T> rows) throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("count", rows.size());
+        gen.writeObjectFieldStart("columns");
+        writeColumns(gen, rows);
+        gen.writeEndObject();
+        gen.writeEndObject();
+    }
+
+    private void writeColumns(JsonGenerator gen, List<T> rows) throws IOException {
+        for (Column<T> column : columns) {
+            column.write(gen, rows);
+        }
+    }
+
+    @FunctionalInterface
+    interface Column<T> {
+        void write(JsonGenerator gen, List<T> rows) throws IOException;
+    }
+}
@@ -0,0 +1,102 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.cache.CacheStats;
+import jpabook.jpashop.cache.CatalogCache;
+import jpabook.jpashop.datasource.ReadWriteRoutingDataSource;
+import jpabook.jpashop.monitor.SqlStatsRegistry;
+import jpabook.jpashop.monitor.SqlStatsRegistry.RequestSqlStats;
+import jpabook.jpashop.service.DeliveryCompletionJob;
+import jpabook.jpashop.service.DeliveryCompletionJob.JobStats;
+import jpabook.jpashop.service.MemberNameFilter;
+import jpabook.jpashop.service.MemberNameFilter.FilterStats;
+import jpabook.jpashop.service.OrderSummaryService;
+import jpabook.jpashop.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 내부 모니터링 API (운영자용, 외부에 노출하지 않는다)
+ */
+@RestController
+@RequiredArgsConstructor
+public class InternalApiController {
+
+    private final SqlStatsRegistry sqlStatsRegistry;
+    private final OrderSummaryService orderSummaryService;
+    private final CatalogCache catalogCache;
+    private final SalesRollupService salesRollupService;
+    private final ObjectProvider<ReadWriteRoutingDataSource> routingDataSource; //replica 설정이 있을 때만
+    private final MemberNameFilter memberNameFilter;
+    private final DeliveryCompletionJob deliveryCompletionJob;
+
+    /**
+     * 최근 요청별 SQL 실행 수, row 수, JDBC 시간, N+1 의심 SQL
+     */
+    @GetMapping("/internal/sql-stats")
+    public List<RequestSqlStats> sqlStats() {
+        return sqlStatsRegistry.recent();
+    }
+
+    /**
+     * 상품/회원 캐시 적중률, 크기, 밀려난 수
+     */
+    @GetMapping("/internal/cache-stats")
+    public Map<String, CacheStats> cacheStats() {
+        return catalogCache.stats();
+    }
+
+    /**
+     * 회원 이름 블룸 필터 - DB 조회 생략 수, 실제/예상 오탐률
+     */
+    @GetMapping("/internal/member-filter-stats")
+    public FilterStats memberFilterStats() {
+        return memberNameFilter.stats();
+    }
+
+    /**
+     * 배송완료 작업 처리량, 남은 READY 배송 수(backlog), 실행 중인 작업자 수
+     */
+    @GetMapping("/internal/delivery-job-stats")
+    public JobStats deliveryJobStats() {
+        return deliveryCompletionJob.stats();
+    }
+
+    /**
+     * 배송완료 작업을 지금 실행한다. (READY 가 없을 때까지)
+     */
+    @PostMapping("/internal/delivery-job/run")
+    public Map<String, Long> runDeliveryJob() {
+        return Map.of("completed", deliveryCompletionJob.run());
+    }
+
+    /**
+     * 주문 요약(order_summary)을 원본 테이블에서 다시 만든다.
+     */
+    @PostMapping("/internal/order-summary/rebuild")
+    public Map<String, Integer> rebuildOrderSummary() {
+        return Map.of("rows", orderSummaryService.rebuild());
+    }
+
+    /**
+     * 매출 집계(sales_rollup)를 원본 테이블에서 다시 만든다.
+     */
+    @PostMapping("/internal/sales-rollup/backfill")
+    public Map<String, Integer> backfillSalesRollup() {
+        return Map.of("rows", salesRollupService.backfill());
+    }
+
+    /**
+     * primary/replica 풀별 커넥션 수, fallback 수, replica 지연
+     */
+    @GetMapping("/internal/datasource-stats")
+    public Map<String, Object> dataSourceStats() {
+        ReadWriteRoutingDataSource routing = routingDataSource.getIfAvailable();
+        return routing == null ? Map.of("routing", false) : routing.stats();
+    }
+}
@@ -2,13 +2,17 @@ package jpabook.jpashop.api;
 
 import jakarta.validation.Valid;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberImportJob;
+import jpabook.jpashop.service.MemberImportService;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 
+import java.io.IOException;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -17,6 +21,7 @@ import java.util.stream.Collectors;
 public class MemberApiController {
 
     private final MemberService memberService;
+    private final MemberImportService memberImportService;
 
     /**
      * 등록 V1: 요청 값으로 Member 엔티티를 직접 받는다.
@@ -44,6 +49,28 @@ public class MemberApiController {
         return new CreateMemberResponse(id);
     }
 
+    /**
+     * 대량 등록: CSV 파일(name,city,street,zipcode) 업로드
+     * 바로 작업 번호를 돌려주고 뒤에서 처리한다. 진행 상황은 아래 조회 API 로 본다.
+     */
+    @PostMapping("/api/v1/members/import")
+    public MemberImportJob.Progress importMembers(@RequestParam("file") MultipartFile file) throws IOException {
+        return memberImportService.start(file).progress();
+    }
+
+    @GetMapping("/api/v1/members/import/{jobId}")
+    public MemberImportJob.Progress importProgress(@PathVariable("jobId") Long jobId) {
+        return memberImportService.findJob(jobId).progress();
+    }
+
+    //거절된 줄 (줄 번호, 원본, 사유), 처리 중에도 조회 가능
+    @GetMapping("/api/v1/members/import/{jobId}/rejected")
+    public Result<List<MemberImportJob.RejectedRow>> importRejected(@PathVariable("jobId") Long jobId,
+                                                                    @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                                                    @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return new Result<>(memberImportService.findJob(jobId).rejectedRows(offset, limit));
+    }
+
     /**
      * 수정 API
      */
@@ -76,7 +103,7 @@ public class MemberApiController {
      * 조회 V2: 응답 값으로 엔티티가 아닌 별도의 DTO를 반환한다.
      */
     @GetMapping("/api/v2/members")
-    public Result membersV2() {
+    public Result<List<MemberDto>> membersV2() {
 
         List<Member> findMembers = memberService.findMembers();
         //엔티티 -> DTO 변환
@@ -84,7 +111,7 @@ public class MemberApiController {
                 .map(m -> new MemberDto(m.getName()))
                 .collect(Collectors.toList());
 
-        return new Result(collect);
+        return new Result<>(collect);
     }
 
     @Data
@@ -1,18 +1,30 @@
 package jpabook.jpashop.api;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import jpabook.jpashop.domain.*;
+import jpabook.jpashop.monitor.SqlStatsFilter;
+import jpabook.jpashop.repository.OrderCursor;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.order.query.OrderFlatDto;
-import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderFlatGrouper;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.BulkOrderLine;
+import jpabook.jpashop.service.BulkOrderResult;
+import jpabook.jpashop.service.OrderExportService;
+import jpabook.jpashop.service.OrderService;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static java.util.stream.Collectors.*;
@@ -27,6 +39,8 @@ import static java.util.stream.Collectors.*;
  * - 트랜잭션 안에서 지연 로딩 필요
  * V3. 엔티티를 조회해서 DTO로 변환(fetch join 사용O)
  * - 페이징 시에는 N 부분을 포기해야함(대신에 batch fetch size? 옵션 주면 N -> 1 쿼리로 변경 가능)
+ * V3.2 V3.1 + 키셋(seek) 페이징
+ * - 뒤 페이지로 가도 비용이 늘지 않는다.
  *
  * V4. JPA에서 DTO로 바로 조회, 컬렉션 N 조회 (1 + N Query)
  * - 페이징 가능
@@ -34,15 +48,20 @@ import static java.util.stream.Collectors.*;
  * - 페이징 가능
  * V6. JPA에서 DTO로 바로 조회, 플랫 데이터(1Query) (1 Query)
  * - 페이징 불가능...
+ * V7. JdbcTemplate 으로 조회해서 DTO 없이 바로 JSON 스트리밍 (1 Query)
  *
  */
 @RestController
 @RequiredArgsConstructor
 public class OrderApiController {
 
+    private static final int MAX_PAGE_LIMIT = 1000;
+    private static final int MAX_MEMBER_ORDERS_LIMIT = 100;
 
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final OrderExportService orderExportService;
+    private final OrderService orderService;
 
 
     /**
@@ -147,6 +166,63 @@ DB에서 읽어오고, 메모리에서 페이징 해버린다(매우 위험하
     하지만 애플리케이션은 100이든 1000이든 결국 전체 데이터를 로딩해야 하므로 메모리 사용량이 같다.
     1000으로 설정하는 것이 성능상 가장 좋지만, 결국 DB든 애플리케이션이든 순간 부하를 어디까지 견딜 수 있는지로 결정하면 된다.
 */
+    /**
+     * V3.2 엔티티를 조회해서 DTO로 변환 키셋(seek) 페이징
+     * - offset 대신 마지막으로 읽은 (orderDate, id) 다음부터 조회한다.
+     * - ToOne 관계는 페치 조인, 컬렉션은 hibernate.default_batch_fetch_size 로 최적화 (V3.1과 동일)
+     * - 다음 페이지는 응답의 nextCursor 를 그대로 넘긴다. 마지막 페이지면 null
+     */
+    @GetMapping("/api/v3.2/orders")
+    public CursorResult<List<OrderDto>> ordersV3_keyset(@RequestParam(value = "cursor", required = false) String cursor,
+                                                       @RequestParam(value = "limit", defaultValue = "100") int limit)
+    {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_LIMIT);
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(OrderCursor.decode(cursor), pageSize);
+        List<OrderDto> result = orders.stream()
+                .map(o -> new OrderDto(o))
+                .collect(toList());
+        return new CursorResult<>(result, nextCursor(orders, pageSize));
+    }
+
+    private String nextCursor(List<Order> orders, int limit) {
+        if (orders.isEmpty() || orders.size() < limit) {
+            return null;
+        }
+        Order last = orders.get(orders.size() - 1);
+        return new OrderCursor(last.getOrderDate(), last.getId()).encode();
+    }
+    /**
+     * 회원별 주문 내역 (최신 순, 키셋 페이징)
+     * - 주문 + 회원 + 배송은 DTO 로 한번에, 주문상품은 현재 페이지 주문만 IN 쿼리 1번 (V5 와 같은 방식)
+     * - 다음 페이지는 응답의 nextCursor 를 그대로 넘긴다. 마지막 페이지면 null
+     */
+    @GetMapping("/api/v1/members/{memberId}/orders")
+    public CursorResult<List<OrderQueryDto>> memberOrders(@PathVariable("memberId") Long memberId,
+                                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                                         @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_MEMBER_ORDERS_LIMIT);
+        List<OrderQueryDto> orders = orderQueryRepository.findMemberOrders(memberId, OrderCursor.decode(cursor), pageSize);
+        String next = null;
+        if (orders.size() == pageSize) {
+            OrderQueryDto last = orders.get(orders.size() - 1);
+            next = new OrderCursor(last.getOrderDate(), last.getOrderId()).encode();
+        }
+        return new CursorResult<>(orders, next);
+    }
+
+/*
+    offset 페이징은 DB가 앞의 offset 건을 모두 읽고 버리기 때문에 페이지가 뒤로 갈수록 느려진다.
+    키셋 페이징은 (order_date, order_id) 인덱스에서 커서 위치를 바로 찾아 limit 건만 읽는다.
+    단점: 임의의 페이지 번호로 바로 이동할 수 없다. (다음 페이지만 가능)
+*/
+
+    @Data
+    @AllArgsConstructor
+    static class CursorResult<T> {
+        private T data;
+        private String nextCursor;
+    }
+
     @Data
     static class OrderDto {
         private Long orderId;
@@ -215,6 +291,38 @@ DB에서 읽어오고, 메모리에서 페이징 해버린다(매우 위험하
     MAP을 사용해서 매칭 성능 향상(O(1))
 */
 
+    /**
+     V5.1: V5 + 페이징, 컬렉션 IN 절을 고정 크기로 나눠서 병렬 조회
+     **/
+    @GetMapping("/api/v5.1/orders")
+    public List<OrderQueryDto> ordersV5_page(@RequestParam(value = "offset", defaultValue = "0") int offset,
+                                             @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        //limit 이 크면 OrderItemChunkLoader 가 나눠 조회할 id 도 그만큼 많아진다
+        return orderQueryRepository.findAllByDto_page(Math.max(offset, 0), Math.min(Math.max(limit, 1), MAX_PAGE_LIMIT));
+    }
+/*
+    IN 절에 id 를 전부 넣으면 DB 파라미터 제한(예: 오라클 1000개)을 넘을 수 있고,
+    id 개수가 바뀔 때마다 다른 SQL 이 되어 쿼리 플랜 캐시가 금방 찬다.
+    고정 크기(2의 거듭제곱)로 패딩해서 SQL 모양을 몇 개로 줄이고, 조각들은 동시에 조회한다.
+*/
+
+    /**
+     V7: JdbcTemplate + JsonGenerator - DTO 없이 ResultSet 에서 응답 스트림으로 바로 쓴다.
+     - 응답 JSON 모양은 V5 와 같다. 쿼리 1번 (플랫 조인, order_id 순)
+     **/
+    @GetMapping("/api/v7/orders")
+    public void ordersV7(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        SqlStatsFilter.disableBuffering(request);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        orderExportService.writeOrdersJson(response.getOutputStream());
+    }
+/*
+    V5 는 OrderQueryDto/OrderItemQueryDto 를 전부 만든 다음 Jackson 이 리플렉션으로 다시 읽는다.
+    V7 은 중간 객체 없이 row 를 읽는 대로 JSON 토큰으로 쓰므로 할당이 적고, 첫 바이트가 빨리 나간다.
+    대신 응답 모양을 SQL 컬럼 순서와 손으로 맞춰야 한다. (DTO 가 바뀌면 같이 바꿔야 함)
+*/
+
 
     /**
      V6: JPA에서 DTO로 직접 조회, 플랫 데이터 최적화
@@ -222,15 +330,12 @@ DB에서 읽어오고, 메모리에서 페이징 해버린다(매우 위험하
     @GetMapping("/api/v6/orders")
     public List<OrderQueryDto> ordersV6() {
         List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat();
-        return flats.stream()
-                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(), o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
-                        mapping(o -> new OrderItemQueryDto(o.getOrderId(), o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
-                )).entrySet().stream()
-                .map(e -> new OrderQueryDto(e.getKey().getOrderId(), e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(), e.getKey().getAddress(), e.getValue()))
-                .collect(toList());
+        return OrderFlatGrouper.group(flats);
     }
 /*
     Query: 1번
+    order by o.id 로 정렬해서 가져오고, 인접한 row 를 한번에 접어서 OrderQueryDto 를 만든다.
+    (이전: groupingBy 로 row 마다 키 OrderQueryDto 를 만들고 HashMap 에 모았다. 순서도 보장되지 않았다.)
     단점
     쿼리는 한번이지만 조인으로 인해 DB에서 애플리케이션에 전달하는 데이터에 중복 데이터가 추가되므로
     상황에 따라 V5 보다 더 느릴 수 도 있다.
@@ -239,6 +344,73 @@ DB에서 읽어오고, 메모리에서 페이징 해버린다(매우 위험하
 */
 
 
+    /**
+     * 대량 주문
+     * - 여러 줄(memberId, itemId, count)을 한번에 주문한다.
+     * - 줄마다 성공(orderId)/실패(error) 결과를 돌려준다. 일부가 실패해도 나머지는 저장된다.
+     *   (줄 검증에서 걸러진 실패만, DB 에 쓸 때 실패하면 전체가 롤백된다)
+     * - lines 가 없거나 비었으면 400
+     */
+    @PostMapping("/api/v1/orders/bulk")
+    public BulkOrderResponse orderBulk(@RequestBody @Valid BulkOrderRequest request) {
+        List<BulkOrderResult> results = orderService.orderBulk(request.getLines());
+        int successCount = (int) results.stream().filter(BulkOrderResult::isSuccess).count();
+        return new BulkOrderResponse(successCount, results.size() - successCount, results);
+    }
+
+    @Data
+    static class BulkOrderRequest {
+        @NotEmpty
+        private List<@NotNull BulkOrderLine> lines = new ArrayList<>();
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class BulkOrderResponse {
+        private int successCount;
+        private int failureCount;
+        private List<BulkOrderResult> results;
+    }
+    /**
+     * 대량 주문 취소
+     * - 배송완료된 주문이 섞여 있으면 전체 취소하지 않는다. 이미 취소된 주문은 건너뛴다.
+     */
+    @PostMapping("/api/v1/orders/cancel")
+    public CancelOrdersResponse cancelOrders(@RequestBody CancelOrdersRequest request) {
+        return new CancelOrdersResponse(orderService.cancelOrders(request.getOrderIds()));
+    }
+
+    @Data
+    static class CancelOrdersRequest {
+        private List<Long> orderIds = new ArrayList<>();
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CancelOrdersResponse {
+        private int canceledCount;
+    }
+
+    /**
+     * 주문 전체 export (NDJSON 스트리밍)
+     * - 주문상품 1건이 1줄, 결과를 List 로 모으지 않고 DB 에서 읽는 대로 응답에 쓴다.
+     * - grouped=true 면 V6 처럼 주문 1건이 1줄 (주문상품은 orderItems 로 묶음)
+     * - 건수와 상관없이 힙 사용량이 일정하다.
+     */
+    @GetMapping("/api/orders/export")
+    public void exportOrders(@RequestParam(value = "grouped", defaultValue = "false") boolean grouped,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        SqlStatsFilter.disableBuffering(request);
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        if (grouped) {
+            orderExportService.exportGrouped(response.getOutputStream());
+        } else {
+            orderExportService.exportFlat(response.getOutputStream());
+        }
+    }
+
+
 }
 
 
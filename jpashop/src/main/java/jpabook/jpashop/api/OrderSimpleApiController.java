@@ -1,14 +1,18 @@
 package jpabook.jpashop.api;
+import jpabook.jpashop.api.OrderApiController.CursorResult;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderSearch;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
 import jpabook.jpashop.repository.*;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.service.OrderSummaryService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -26,6 +30,7 @@ import static java.util.stream.Collectors.toList;
 public class OrderSimpleApiController {
     private final OrderRepository orderRepository;
     private final OrderSimpleQueryRepository orderSimpleQueryRepository; //의존관계 주입
+    private final OrderSummaryService orderSummaryService;
 
 
 
@@ -110,6 +115,34 @@ public class OrderSimpleApiController {
     SELECT 절에서 원하는 데이터를 직접 선택하므로 DB 애플리케이션 네트웍 용량 최적화(생각보다 미비)
     리포지토리 재사용성 떨어짐, API 스펙에 맞춘 코드가 리포지토리에 들어가는 단점
 */
+
+    /**
+     * V5. 조회용 요약 테이블(order_summary)에서 조회
+     * - 조인 없이 테이블 1개만 읽는다. 주문/취소/회원 이름 변경 때 같은 트랜잭션에서 미리 갱신해 둔다.
+     * - 키셋 페이징 (cursor), 주문상태 필터 (status)
+     */
+    @GetMapping("/api/v5/simple-orders")
+    public CursorResult<List<OrderSummaryDto>> ordersV5(@RequestParam(value = "cursor", required = false) String cursor,
+                                                        @RequestParam(value = "status", required = false) OrderStatus status,
+                                                        @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_LIMIT);
+        List<OrderSummary> summaries = orderSummaryService.findPage(OrderCursor.decode(cursor), status, pageSize);
+        List<OrderSummaryDto> result = summaries.stream()
+                .map(s -> new OrderSummaryDto(s))
+                .collect(toList());
+        String nextCursor = null;
+        if (!summaries.isEmpty() && summaries.size() == pageSize) {
+            OrderSummary last = summaries.get(summaries.size() - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getOrderId()).encode();
+        }
+        return new CursorResult<>(result, nextCursor);
+    }
+
+    private static final int MAX_PAGE_LIMIT = 1000;
+/*
+    읽기가 쓰기보다 훨씬 많을 때, 쓰는 쪽에서 조회용 테이블을 미리 맞춰 두는 방법 (CQRS)
+    쓰기는 조금 무거워지지만 목록 조회는 조인 없이 인덱스 (status, order_date, order_id) 만 타고 읽는다.
+*/
 /*
 정리
     엔티티를 DTO로 변환하거나, DTO로 바로 조회하는 두가지 방법은 각각 장단점이 있다. 둘중 상황에 따라서 더 나은 방법을 선택하면 된다.
@@ -140,4 +173,26 @@ public class OrderSimpleApiController {
             address = order.getDelivery().getAddress();
         }
     }
+
+    @Data
+    static class OrderSummaryDto {
+
+        private Long orderId;
+        private String name;
+        private LocalDateTime orderDate; //주문시간
+        private OrderStatus orderStatus;
+        private Address address;
+        private int totalPrice;
+        private int itemCount;
+
+        public OrderSummaryDto(OrderSummary summary) {
+            orderId = summary.getOrderId();
+            name = summary.getMemberName();
+            orderDate = summary.getOrderDate();
+            orderStatus = summary.getStatus();
+            address = summary.getAddress();
+            totalPrice = summary.getTotalPrice();
+            itemCount = summary.getItemCount();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.RollupDimension;
+import jpabook.jpashop.domain.SalesRollup;
+import jpabook.jpashop.repository.SalesTotal;
+import jpabook.jpashop.service.SalesRollupService;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 매출 조회 - 일별 집계 테이블(sales_rollup)만 읽는다. (order_item 을 읽지 않는다)
+ * dimension: ITEM(상품 id), MEMBER(회원 id), STATUS(주문상태)
+ */
+@RestController
+@RequiredArgsConstructor
+public class SalesApiController {
+
+    private static final int MAX_TOTALS_LIMIT = 1000;
+
+    private final SalesRollupService salesRollupService;
+
+    /**
+     * 기준 값 하나의 일별 매출
+     * 예) /api/v1/sales/ITEM/3/daily?from=2023-01-01&to=2023-01-31
+     */
+    @GetMapping("/api/v1/sales/{dimension}/{key}/daily")
+    public List<DailySalesDto> daily(@PathVariable("dimension") RollupDimension dimension,
+                                     @PathVariable("key") String key,
+                                     @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                     @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return salesRollupService.findDaily(dimension, key, from, to).stream()
+                .map(s -> new DailySalesDto(s))
+                .collect(toList());
+    }
+
+    /**
+     * 기간 합계, 매출 순
+     * 예) /api/v1/sales/ITEM?from=2023-01-01&to=2023-01-31&limit=10
+     */
+    @GetMapping("/api/v1/sales/{dimension}")
+    public List<SalesTotal> totals(@PathVariable("dimension") RollupDimension dimension,
+                                   @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                   @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                   @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        return salesRollupService.findTotals(dimension, from, to, Math.min(Math.max(limit, 1), MAX_TOTALS_LIMIT));
+    }
+
+    @Data
+    static class DailySalesDto {
+        private LocalDate date;
+        private long revenue;
+        private long quantity;
+        private long orderCount;
+
+        public DailySalesDto(SalesRollup rollup) {
+            date = rollup.getId().getSalesDate();
+            revenue = rollup.getRevenue();
+            quantity = rollup.getQuantity();
+            orderCount = rollup.getOrderCount();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package jpabook.jpashop.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CacheStats {
+    private long hits;
+    private long misses;
+    private long evictions; //크기 제한으로 밀려난 수
+    private long expirations; //ttl 이 지나서 버린 수
+    private int size;
+    private int maxSize;
+
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,81 @@
+package jpabook.jpashop.cache;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Item;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 상품/회원 조회 캐시 (read-through)
+ * 주문할 때마다 상품 가격, 회원 주소를 em.find 로 읽지 않도록 변경 불가 스냅샷으로 캐시한다.
+ * - 엔티티가 아니라 스냅샷을 캐시한다. 재고 같은 자주 바뀌는 값은 넣지 않는다.
+ * - 수정하는 쪽(ItemService, ItemRepository, MemberService)에서 evict 를 호출한다.
+ *   지금 한번, 트랜잭션이 끝난 후에 한번 더 지운다. (커밋 전에 다른 쓰레드가 이전 값을 다시 캐시할 수 있어서)
+ * - 리포지토리가 이 캐시를 쓰기 때문에 여기서는 리포지토리 대신 EntityManager 를 직접 쓴다. (순환 참조 방지)
+ */
+@Component
+public class CatalogCache {
+
+    private final EntityManager em;
+    private final LruTtlCache<Long, ItemSnapshot> items;
+    private final LruTtlCache<Long, MemberSnapshot> members;
+
+    public CatalogCache(EntityManager em,
+                        @Value("${jpashop.catalog-cache.max-size:10000}") int maxSize,
+                        @Value("${jpashop.catalog-cache.ttl-ms:300000}") long ttlMillis) {
+        this.em = em;
+        this.items = new LruTtlCache<>(maxSize, ttlMillis);
+        this.members = new LruTtlCache<>(maxSize, ttlMillis);
+    }
+
+    /** 없으면 null */
+    public ItemSnapshot item(Long itemId) {
+        return items.get(itemId, id -> {
+            Item item = em.find(Item.class, id);
+            return item == null ? null : new ItemSnapshot(item);
+        });
+    }
+
+    /** 없으면 null */
+    public MemberSnapshot member(Long memberId) {
+        return members.get(memberId, id -> {
+            Member member = em.find(Member.class, id);
+            return member == null ? null : new MemberSnapshot(member);
+        });
+    }
+
+    public void evictItem(Long itemId) {
+        items.invalidate(itemId);
+        afterCompletion(() -> items.invalidate(itemId));
+    }
+
+    public void evictMember(Long memberId) {
+        members.invalidate(memberId);
+        afterCompletion(() -> members.invalidate(memberId));
+    }
+
+    public Map<String, CacheStats> stats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("item", items.stats());
+        stats.put("member", members.stats());
+        return stats;
+    }
+
+    private void afterCompletion(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                task.run(); //롤백돼도 지워서 손해 볼 것은 없다
+            }
+        });
+    }
+}
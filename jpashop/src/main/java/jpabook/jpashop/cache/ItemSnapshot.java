@@ -0,0 +1,21 @@
+package jpabook.jpashop.cache;
+
+import jpabook.jpashop.domain.item.Item;
+import lombok.Getter;
+
+/**
+ * 캐시용 상품 정보 (변경 불가)
+ * 재고는 넣지 않는다. 재고는 항상 DB 가 기준이다.
+ */
+@Getter
+public class ItemSnapshot {
+    private final Long id;
+    private final String name;
+    private final int price;
+
+    public ItemSnapshot(Item item) {
+        this.id = item.getId();
+        this.name = item.getName();
+        this.price = item.getPrice();
+    }
+}
@@ -0,0 +1,21 @@
+package jpabook.jpashop.cache;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import lombok.Getter;
+
+/**
+ * 캐시용 회원 정보 (변경 불가)
+ */
+@Getter
+public class MemberSnapshot {
+    private final Long id;
+    private final String name;
+    private final Address address; //값 타입이라 그대로 공유해도 된다
+
+    public MemberSnapshot(Member member) {
+        this.id = member.getId();
+        this.name = member.getName();
+        this.address = member.getAddress();
+    }
+}
@@ -0,0 +1,62 @@
+package jpabook.jpashop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * 읽기 전용 replica 설정 (jpashop.datasource.replica.url 이 있을 때만)
+ * 없으면 스프링 부트 기본 DataSource 하나만 쓴다.
+ * - primary: spring.datasource.*
+ * - replica: jpashop.datasource.replica.* (url, username, password)
+ * - routingDataSource 도 DataSource 빈이라 p6spy 가 감싸지 않도록 decorator.datasource.exclude-beans 에 넣어 둔다. (application.yml)
+ */
+@Configuration
+@ConditionalOnProperty(name = "jpashop.datasource.replica.url")
+public class DataSourceConfig {
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(
+            DataSourceProperties properties,
+            @Value("${jpashop.datasource.replica.url}") String replicaUrl,
+            @Value("${jpashop.datasource.replica.username:${spring.datasource.username:}}") String replicaUsername,
+            @Value("${jpashop.datasource.replica.password:${spring.datasource.password:}}") String replicaPassword) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        replica.setPoolName(ReadWriteRoutingDataSource.REPLICA);
+        replica.setReadOnly(true);
+        return new ReadWriteRoutingDataSource(primary, replica);
+    }
+
+    /**
+     * JPA/JDBC 가 쓰는 DataSource - 첫 SQL 실행 때 readOnly 여부를 보고 커넥션을 고른다.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ReplicaHealthChecker replicaHealthChecker(
+            ReadWriteRoutingDataSource routingDataSource,
+            @Value("${jpashop.datasource.replica.lag-query:}") String lagQuery,
+            @Value("${jpashop.datasource.replica.max-lag-ms:1000}") long maxLagMs) {
+        return new ReplicaHealthChecker(routingDataSource.getResolvedDataSources().get(ReadWriteRoutingDataSource.REPLICA),
+                routingDataSource, lagQuery, maxLagMs);
+    }
+}
@@ -0,0 +1,94 @@
+package jpabook.jpashop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 읽기/쓰기 라우팅 DataSource
+ * - readOnly 트랜잭션은 replica, 나머지는 primary 로 보낸다.
+ * - replica 가 죽었거나 지연(lag)이 크면 readOnly 트랜잭션도 primary 로 보낸다. (ReplicaHealthChecker 가 상태를 갱신)
+ * 주의: 트랜잭션 시작 시점에는 readOnly 여부가 아직 동기화되지 않았으므로
+ * 반드시 LazyConnectionDataSourceProxy 로 감싸서 첫 SQL 을 실행할 때 커넥션을 고르게 한다.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final DataSource primary;
+    private final DataSource replica;
+
+    private volatile boolean replicaAvailable = true;
+    private volatile long replicaLagMs;
+
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder(); //readOnly 인데 replica 상태 때문에 primary 로 보낸 수
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.put(REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (replicaAvailable) {
+                replicaConnections.increment();
+                return REPLICA;
+            }
+            fallbacks.increment();
+        }
+        primaryConnections.increment();
+        return PRIMARY;
+    }
+
+    public void updateReplicaStatus(boolean available, long lagMs) {
+        this.replicaAvailable = available;
+        this.replicaLagMs = lagMs;
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    /**
+     * 풀별 커넥션 획득 수, fallback 수, replica 상태/지연, Hikari 풀 사용량
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("primaryConnections", primaryConnections.sum());
+        stats.put("replicaConnections", replicaConnections.sum());
+        stats.put("fallbacks", fallbacks.sum());
+        stats.put("replicaAvailable", replicaAvailable);
+        stats.put("replicaLagMs", replicaLagMs);
+        stats.put(PRIMARY, poolStats(primary));
+        stats.put(REPLICA, poolStats(replica));
+        return stats;
+    }
+
+    private Map<String, Object> poolStats(DataSource dataSource) {
+        Map<String, Object> pool = new LinkedHashMap<>();
+        if (dataSource instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+            HikariPoolMXBean mxBean = hikari.getHikariPoolMXBean();
+            pool.put("active", mxBean.getActiveConnections());
+            pool.put("idle", mxBean.getIdleConnections());
+            pool.put("total", mxBean.getTotalConnections());
+            pool.put("waiting", mxBean.getThreadsAwaitingConnection());
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,61 @@
+package jpabook.jpashop.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * replica 상태 확인 (주기적)
+ * - lag-query 가 있으면 그 결과(첫 컬럼, ms)를 복제 지연으로 보고, max-lag-ms 를 넘으면 replica 를 쓰지 않는다.
+ *   예) PostgreSQL: select extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000
+ * - lag-query 가 없으면 연결만 확인한다. (H2 처럼 복제 지연을 알 수 없는 경우)
+ * - 연결에 실패해도 replica 를 쓰지 않고, 다음 확인에서 회복되면 다시 쓴다.
+ */
+@Slf4j
+public class ReplicaHealthChecker {
+
+    private final DataSource replica;
+    private final ReadWriteRoutingDataSource routingDataSource;
+    private final String lagQuery;
+    private final long maxLagMs;
+
+    public ReplicaHealthChecker(DataSource replica, ReadWriteRoutingDataSource routingDataSource,
+                                String lagQuery, long maxLagMs) {
+        this.replica = replica;
+        this.routingDataSource = routingDataSource;
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLagMs;
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.datasource.replica.check-interval-ms:1000}")
+    public void check() {
+        boolean wasAvailable = routingDataSource.isReplicaAvailable();
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            long lagMs = 0;
+            if (StringUtils.hasText(lagQuery)) {
+                try (ResultSet rs = statement.executeQuery(lagQuery)) {
+                    lagMs = rs.next() ? rs.getLong(1) : 0;
+                }
+            } else {
+                statement.execute("select 1");
+            }
+            boolean available = lagMs <= maxLagMs;
+            routingDataSource.updateReplicaStatus(available, lagMs);
+            if (wasAvailable != available) {
+                log.warn("replica {} (lag {} ms)", available ? "back in service" : "lagging, reads go to primary", lagMs);
+            }
+        } catch (SQLException e) {
+            routingDataSource.updateReplicaStatus(false, -1);
+            if (wasAvailable) {
+                log.warn("replica unavailable, reads go to primary", e);
+            }
+        }
+    }
+}
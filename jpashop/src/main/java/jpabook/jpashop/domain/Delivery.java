@@ -5,6 +5,9 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_delivery_status_id", columnList = "status, delivery_id") //배송완료 작업이 READY 를 id 순으로 가져간다
+})
 @Getter @Setter
 public class Delivery {
 
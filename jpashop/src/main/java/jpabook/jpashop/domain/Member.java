@@ -8,6 +8,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_member_name", columnNames = "name") //회원 이름 중복 방지 (MemberNameFilter 는 DB 조회를 줄이기만 한다)
+})
 @Getter @Setter
 public class Member {
 
@@ -20,6 +23,7 @@ public class Member {
     @Embedded //내장 타입을 쓸때는 인베디드나 인베더블 두 중에 하나만 있으면 된다.
     private Address address;
 
+    //주문이 많은 회원은 컬렉션 전체를 읽게 되므로, 주문 내역 조회는 OrderQueryRepository.findMemberOrders (키셋 페이징)
     @OneToMany(mappedBy = "member")
     private List<Order> orders = new ArrayList<>();
 }
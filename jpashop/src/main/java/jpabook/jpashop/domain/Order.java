@@ -2,6 +2,7 @@ package jpabook.jpashop.domain;
 
 import jakarta.persistence.*;
 import lombok.Getter;
+import org.hibernate.Hibernate;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
@@ -9,7 +10,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_order_date_id", columnList = "order_date desc, order_id desc"), //키셋 페이징
+        @Index(name = "idx_orders_member_date_id", columnList = "member_id, order_date desc, order_id desc") //회원별 주문 내역 키셋 페이징
+})
 @Getter @Setter
 public class Order {
 
@@ -35,7 +39,9 @@ public class Order {
     //==연관관계 메서드==//
     public void setMember(Member member) {
         this.member = member;
-        member.getOrders().add(this);
+        if (Hibernate.isInitialized(member)) { //프록시(getReference)면 회원을 조회하지 않도록 건너뛴다
+            member.getOrders().add(this);
+        }
     }
     public void addOrderItem(OrderItem orderItem) {
         orderItems.add(orderItem);
@@ -62,13 +68,20 @@ public class Order {
     //==비즈니스 로직==//
     /** 주문 취소 */
     public void cancel() {
+        markCanceled();
+        for (OrderItem orderItem : orderItems) {
+            orderItem.cancel();
+        }
+    }
+    /** 주문 상태만 취소로 변경, 재고 복구는 호출한 쪽에서 한다 */
+    public void markCanceled() {
+        if (status == OrderStatus.CANCEL) { //두 번 취소하면 재고와 매출 집계가 두 번 복구된다
+            throw new IllegalStateException("이미 취소된 주문입니다.");
+        }
         if (delivery.getStatus() == DeliveryStatus.COMP) {
             throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
         }
         this.setStatus(OrderStatus.CANCEL);
-        for (OrderItem orderItem : orderItems) {
-            orderItem.cancel();
-        }
     }
     //==조회 로직==//
     /** 전체 주문 가격 조회 */
@@ -28,11 +28,17 @@ public class OrderItem {
     //==생성 메서드==//
     public static OrderItem createOrderItem(Item item, int orderPrice, int
             count) {
+        OrderItem orderItem = createReservedOrderItem(item, orderPrice, count);
+        item.removeStock(count);
+        return orderItem;
+    }
+    /** 재고를 이미 차감(선점)한 경우, 엔티티의 재고는 건드리지 않는다 */
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int
+            count) {
         OrderItem orderItem = new OrderItem();
         orderItem.setItem(item);
         orderItem.setOrderPrice(orderPrice);
         orderItem.setCount(count);
-        item.removeStock(count);
         return orderItem;
     }
     //==비즈니스 로직==//
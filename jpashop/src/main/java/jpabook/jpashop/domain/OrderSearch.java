@@ -7,7 +7,17 @@ import lombok.Setter;
 @Getter
 @Setter
 public class OrderSearch {
+    public static final int MAX_LIMIT = 1000;
     private String memberName; //회원 이름
     private OrderStatus orderStatus;//주문 상태[ORDER, CANCEL]
+    private Long lastOrderId; //키셋 페이징, 이전 페이지의 마지막 주문 id (없으면 첫 페이지)
+    private int limit = 100; //한 페이지 건수
     //Getter, Setter
+
+    /**
+     * 실제 한 페이지 건수 (limit 을 1 ~ MAX_LIMIT 으로 보정)
+     */
+    public int getPageSize() {
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 요약 (조회 전용 테이블)
+ * 주문 목록 조회에 필요한 값을 주문/회원/배송/주문상품에서 미리 모아 둔다. 목록 조회는 이 테이블 하나만 읽는다.
+ * - 주문, 주문 취소, 회원 이름 변경 때 같은 트랜잭션 안에서 갱신한다. (OrderService, MemberService)
+ * - 어긋났을 때는 OrderSummaryService.rebuild() 로 원본 테이블에서 다시 만든다.
+ */
+@Entity
+@Table(name = "order_summary", indexes = {
+        @Index(name = "idx_order_summary_date_id", columnList = "order_date desc, order_id desc"), //키셋 페이징
+        @Index(name = "idx_order_summary_status_date_id", columnList = "status, order_date desc, order_id desc"),
+        @Index(name = "idx_order_summary_member", columnList = "member_id") //회원 이름 변경
+})
+@Getter
+public class OrderSummary {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId; //주문 id 를 그대로 쓴다
+
+    @Column(name = "member_id")
+    private Long memberId;
+    private String memberName;
+
+    @Embedded
+    private Address address; //배송지
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+    private LocalDateTime orderDate;
+    private int totalPrice;
+    private int itemCount; //주문상품 종류 수
+
+    protected OrderSummary() {
+    }
+
+    public static OrderSummary of(Order order) {
+        return of(order, order.getMember().getName());
+    }
+
+    /** 회원 이름을 이미 알고 있을 때 (회원 프록시를 초기화하지 않는다) */
+    public static OrderSummary of(Order order, String memberName) {
+        OrderSummary summary = new OrderSummary();
+        summary.orderId = order.getId();
+        summary.memberId = order.getMember().getId();
+        summary.memberName = memberName;
+        summary.address = order.getDelivery().getAddress();
+        summary.status = order.getStatus();
+        summary.orderDate = order.getOrderDate();
+        summary.totalPrice = order.getTotalPrice();
+        summary.itemCount = order.getOrderItems().size();
+        return summary;
+    }
+
+    public void changeStatus(OrderStatus status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,8 @@
+package jpabook.jpashop.domain;
+
+/**
+ * 매출 집계 기준 - 상품별, 회원별, 주문상태별
+ */
+public enum RollupDimension {
+    ITEM, MEMBER, STATUS
+}
@@ -0,0 +1,30 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+
+/**
+ * 일별 매출 집계
+ * 주문/취소 때 변경량(delta)만 더한다. 조회는 order_item 을 읽지 않고 이 테이블만 읽는다.
+ * - ITEM, MEMBER: 취소되지 않은 주문 기준 (취소하면 뺀다)
+ * - STATUS: 주문상태별 (취소하면 ORDER 에서 빼고 CANCEL 에 더한다)
+ * - 일자는 주문일 기준
+ */
+@Entity
+@Table(name = "sales_rollup", indexes = {
+        @Index(name = "idx_sales_rollup_dim_key_date", columnList = "dimension, dim_key, sales_date"), //기준 값 하나의 기간 조회
+        @Index(name = "idx_sales_rollup_dim_date", columnList = "dimension, sales_date") //기간 합계 순위
+})
+@Getter
+public class SalesRollup {
+
+    @EmbeddedId
+    private SalesRollupId id;
+
+    private long revenue; //매출 (주문가격 * 수량)
+    private long quantity; //주문 수량
+    private long orderCount; //주문 수
+
+    protected SalesRollup() {
+    }
+}
@@ -0,0 +1,50 @@
+package jpabook.jpashop.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Comparator;
+
+/**
+ * 매출 집계 키 (일자, 집계 기준, 기준 값)
+ * 기준 값은 상품 id, 회원 id, 주문상태 이름
+ */
+@Embeddable
+@Getter
+@EqualsAndHashCode
+public class SalesRollupId implements Serializable, Comparable<SalesRollupId> {
+
+    private static final Comparator<SalesRollupId> ORDER = Comparator
+            .comparing(SalesRollupId::getSalesDate)
+            .thenComparing(SalesRollupId::getDimension)
+            .thenComparing(SalesRollupId::getDimKey);
+
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    @Enumerated(EnumType.STRING)
+    private RollupDimension dimension;
+
+    @Column(name = "dim_key")
+    private String dimKey;
+
+    protected SalesRollupId() {
+    }
+
+    public SalesRollupId(LocalDate salesDate, RollupDimension dimension, String dimKey) {
+        this.salesDate = salesDate;
+        this.dimension = dimension;
+        this.dimKey = dimKey;
+    }
+
+    @Override
+    public int compareTo(SalesRollupId other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,14 @@
+package jpabook.jpashop.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 없는 카테고리 id (API 에서는 400)
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class CategoryNotFoundException extends IllegalArgumentException {
+    public CategoryNotFoundException(Long id) {
+        super("카테고리가 없습니다. id=" + id);
+    }
+}
@@ -0,0 +1,17 @@
+package jpabook.jpashop.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 잘못된 페이징 커서 (API 에서는 400)
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends IllegalArgumentException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,60 @@
+package jpabook.jpashop.monitor;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 요청(또는 테스트) 하나에서 실행된 SQL 통계
+ * - 실행 수, 읽은 row 수, JDBC 시간
+ * - SQL 모양(파라미터를 뺀 SQL)별 실행 수: 같은 모양이 반복되면 N+1 을 의심한다.
+ * 한 스레드에서만 쓴다. (SqlStatsHolder)
+ */
+@Getter
+public class SqlStats {
+
+    //in (?, ?, ?) -> in (?) : IN 절 크기가 달라도 같은 모양으로 본다
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private int statements;
+    private long rows;
+    private long jdbcNanos;
+    private final Map<String, Integer> shapes = new LinkedHashMap<>();
+
+    void recordStatement(String sql, long nanos) {
+        statements++;
+        jdbcNanos += nanos;
+        if (sql != null) {
+            shapes.merge(shapeOf(sql), 1, Integer::sum);
+        }
+    }
+
+    void recordRow(long nanos) {
+        rows++;
+        jdbcNanos += nanos;
+    }
+
+    public long getJdbcMillis() {
+        return jdbcNanos / 1_000_000;
+    }
+
+    /**
+     * threshold 번 이상 반복된 SQL 모양 (N+1 의심)
+     */
+    public List<String> repeatedShapes(int threshold) {
+        return shapes.entrySet().stream()
+                .filter(e -> e.getValue() >= threshold)
+                .map(e -> e.getValue() + "x " + e.getKey())
+                .collect(Collectors.toList());
+    }
+
+    static String shapeOf(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return IN_LIST.matcher(shape).replaceAll("(?)");
+    }
+}
@@ -0,0 +1,95 @@
+package jpabook.jpashop.monitor;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jpabook.jpashop.monitor.SqlStatsRegistry.RequestSqlStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * 요청마다 SQL 통계를 모은다.
+ * - 응답 본문을 모아 두었다가 헤더를 붙인 다음 내보낸다. (X-Sql-Count, X-Sql-Rows, X-Sql-Time-Ms, X-Sql-N-Plus-One)
+ *   JSON 응답은 메시지 컨버터가 본문을 쓰면서 flush 하므로, 모아 두지 않으면 필터로 돌아왔을 때 이미 커밋되어 있다.
+ * - 스트리밍 응답은 {@link #disableBuffering} 으로 모으지 않는다. 이 경우 헤더 없이 /internal/sql-stats 로 확인한다.
+ * - 같은 모양의 SQL 이 반복되면 N+1 의심 로그를 남긴다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    private static final String STREAMING_ATTRIBUTE = SqlStatsFilter.class.getName() + ".STREAMING";
+
+    private final SqlStatsRegistry registry;
+
+    /**
+     * 응답 본문을 모으지 않고 바로 내보낸다. (getOutputStream/getWriter 전에 호출)
+     * - 건수와 상관없이 힙 사용량이 일정해야 하는 스트리밍 응답용
+     */
+    public static void disableBuffering(ServletRequest request) {
+        request.setAttribute(STREAMING_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StatsResponseWrapper wrapped = new StatsResponseWrapper(response, request);
+        SqlStatsHolder.begin();
+        try {
+            filterChain.doFilter(request, wrapped);
+        } finally {
+            SqlStats stats = SqlStatsHolder.end();
+            RequestSqlStats entry = registry.record(request.getMethod() + " " + request.getRequestURI(), stats);
+            if (!response.isCommitted()) {
+                response.setHeader("X-Sql-Count", String.valueOf(entry.getStatements()));
+                response.setHeader("X-Sql-Rows", String.valueOf(entry.getRows()));
+                response.setHeader("X-Sql-Time-Ms", String.valueOf(entry.getJdbcMillis()));
+                if (!entry.getSuspectedNPlusOne().isEmpty()) {
+                    response.setHeader("X-Sql-N-Plus-One", String.valueOf(entry.getSuspectedNPlusOne().size()));
+                }
+            }
+            wrapped.copyBodyToResponse();
+            if (!entry.getSuspectedNPlusOne().isEmpty()) {
+                log.warn("N+1 의심 {} ({} statements): {}", entry.getRequest(), entry.getStatements(),
+                        entry.getSuspectedNPlusOne());
+            }
+        }
+    }
+
+    /**
+     * disableBuffering 된 요청은 원래 응답 스트림을 그대로 넘긴다. (ShallowEtagHeaderFilter 와 같은 방식)
+     */
+    private static class StatsResponseWrapper extends ContentCachingResponseWrapper {
+
+        private final HttpServletRequest request;
+
+        StatsResponseWrapper(HttpServletResponse response, HttpServletRequest request) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            return streaming() ? getResponse().getOutputStream() : super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            return streaming() ? getResponse().getWriter() : super.getWriter();
+        }
+
+        private boolean streaming() {
+            return request.getAttribute(STREAMING_ATTRIBUTE) != null;
+        }
+    }
+}
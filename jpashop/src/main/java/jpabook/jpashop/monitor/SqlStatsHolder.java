@@ -0,0 +1,27 @@
+package jpabook.jpashop.monitor;
+
+/**
+ * 현재 스레드의 SqlStats 보관
+ * begin ~ end 사이에 같은 스레드에서 실행된 SQL 만 집계된다.
+ * (OrderItemChunkLoader 처럼 다른 스레드에서 실행한 SQL 은 빠진다)
+ */
+public abstract class SqlStatsHolder {
+
+    private static final ThreadLocal<SqlStats> CURRENT = new ThreadLocal<>();
+
+    public static SqlStats begin() {
+        SqlStats stats = new SqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static SqlStats current() {
+        return CURRENT.get();
+    }
+
+    public static SqlStats end() {
+        SqlStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+}
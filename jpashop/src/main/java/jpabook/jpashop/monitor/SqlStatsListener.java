@@ -0,0 +1,32 @@
+package jpabook.jpashop.monitor;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 이벤트를 받아서 현재 스레드의 SqlStats 에 기록한다.
+ * JdbcEventListener 빈은 p6spy-spring-boot-starter 가 자동으로 등록한다.
+ */
+@Component
+public class SqlStatsListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        SqlStats stats = SqlStatsHolder.current();
+        if (stats != null) {
+            stats.recordStatement(statementInformation.getSql(), timeElapsedNanos);
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        SqlStats stats = SqlStatsHolder.current();
+        if (stats != null && hasNext) {
+            stats.recordRow(timeElapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package jpabook.jpashop.monitor;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 최근 요청들의 SQL 통계 (최대 MAX_ENTRIES 건)
+ * /internal/sql-stats 로 조회한다.
+ */
+@Component
+public class SqlStatsRegistry {
+
+    private static final int MAX_ENTRIES = 100;
+
+    @Getter
+    private final int nPlusOneThreshold;
+    private final Deque<RequestSqlStats> recent = new ArrayDeque<>();
+
+    public SqlStatsRegistry(@Value("${jpashop.sql-monitor.n-plus-one-threshold:5}") int nPlusOneThreshold) {
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    public RequestSqlStats record(String request, SqlStats stats) {
+        RequestSqlStats entry = new RequestSqlStats(request, stats.getStatements(), stats.getRows(),
+                stats.getJdbcMillis(), stats.repeatedShapes(nPlusOneThreshold));
+        synchronized (recent) {
+            recent.addFirst(entry);
+            if (recent.size() > MAX_ENTRIES) {
+                recent.removeLast();
+            }
+        }
+        return entry;
+    }
+
+    public List<RequestSqlStats> recent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    @Getter
+    public static class RequestSqlStats {
+        private final String request;
+        private final int statements;
+        private final long rows;
+        private final long jdbcMillis;
+        private final List<String> suspectedNPlusOne;
+
+        RequestSqlStats(String request, int statements, long rows, long jdbcMillis, List<String> suspectedNPlusOne) {
+            this.request = request;
+            this.statements = statements;
+            this.rows = rows;
+            this.jdbcMillis = jdbcMillis;
+            this.suspectedNPlusOne = suspectedNPlusOne;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    /**
+     * row 락을 잡고 조회 (select ... for update), 없으면 null
+     */
+    public Category findOneForUpdate(Long id) {
+        return em.find(Category.class, id, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    /**
+     * 트리 구성용 (id, parentId, name) 전체 - 쿼리 1번
+     */
+    public List<Object[]> findAllIdParentName() {
+        return em.createQuery("select c.id, p.id, c.name from Category c left join c.parent p", Object[].class)
+                .getResultList();
+    }
+
+    /**
+     * 카테고리들에 속한 상품 (중복 제거, id 순) - category_item 만 서브쿼리로 읽는다.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Item> findItemsInCategories(Collection<Long> categoryIds, int limit) {
+        return em.createNativeQuery(
+                        "select i.* from item i" +
+                                " where i.item_id in (select ci.item_id from category_item ci where ci.category_id in (:categoryIds))" +
+                                " order by i.item_id", Item.class)
+                .setParameter("categoryIds", categoryIds)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,97 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+@Repository
+@RequiredArgsConstructor
+public class DeliveryRepository {
+
+    private final EntityManager em;
+
+    public Delivery findOne(Long id) {
+        return em.find(Delivery.class, id);
+    }
+
+    /**
+     * READY 배송의 id 범위 {최소, 최대}, 없으면 null
+     * 작업자끼리 이 범위를 나눠서 가져간다. (idx_delivery_status_id 만 읽는다)
+     */
+    public long[] findReadyIdRange() {
+        Object[] row = (Object[]) em.createNativeQuery(
+                        "select min(d.delivery_id), max(d.delivery_id) from delivery d where d.status = 'READY'")
+                .getSingleResult();
+        if (row[0] == null) {
+            return null;
+        }
+        return new long[]{((Number) row[0]).longValue(), ((Number) row[1]).longValue()};
+    }
+
+    /**
+     * 배송완료 처리할 후보 (after < id <= upTo, id 순으로 limit 건), 잠그지 않는다.
+     * 취소된 주문의 배송은 제외한다. 다른 작업자가 먼저 처리했을 수 있으므로 lockOrdered, updateStatus 로 다시 확인한다.
+     */
+    public List<Long> findReadyIds(long after, long upTo, int limit) {
+        List<?> ids = em.createNativeQuery(
+                        "select d.delivery_id from delivery d" +
+                                " where d.status = 'READY' and d.delivery_id > ?1 and d.delivery_id <= ?2" +
+                                " and exists (select 1 from orders o where o.delivery_id = d.delivery_id and o.status = 'ORDER')" +
+                                " order by d.delivery_id" +
+                                " fetch first ?3 rows only")
+                .setParameter(1, after)
+                .setParameter(2, upTo)
+                .setParameter(3, limit)
+                .getResultList();
+        return toIds(ids);
+    }
+
+    /**
+     * 배송들의 주문 중 아직 ORDER 인 것만 잠그고(select ... for update) 그 배송 id 를 돌려준다.
+     * 주문 취소도 주문 row 를 먼저 잠그므로, 잠근 뒤에는 커밋까지 취소와 겹치지 않는다.
+     * (잠금을 기다렸다가 얻으면 커밋된 상태로 다시 확인하므로, 그 사이 취소된 주문은 빠진다)
+     */
+    public List<Long> lockOrdered(Collection<Long> deliveryIds) {
+        List<?> ids = em.createNativeQuery(
+                        "select o.delivery_id from orders o" +
+                                " where o.delivery_id in (?1) and o.status = 'ORDER'" +
+                                " order by o.delivery_id" +
+                                " for update")
+                .setParameter(1, deliveryIds)
+                .getResultList();
+        return toIds(ids);
+    }
+
+    /**
+     * 상태를 UPDATE 한번으로 변경 (벌크 연산), 이미 바뀐 row 는 세지 않는다
+     */
+    public int updateStatus(Collection<Long> deliveryIds, DeliveryStatus from, DeliveryStatus to) {
+        return em.createQuery("update Delivery d set d.status = :to where d.id in :ids and d.status = :from")
+                .setParameter("to", to)
+                .setParameter("from", from)
+                .setParameter("ids", deliveryIds)
+                .executeUpdate();
+    }
+
+    /**
+     * 배송완료 처리를 기다리는 배송 수 (findReadyIds 대상과 같은 조건)
+     */
+    public long countReady() {
+        return ((Number) em.createNativeQuery(
+                        "select count(*) from delivery d" +
+                                " where d.status = 'READY'" +
+                                " and exists (select 1 from orders o where o.delivery_id = d.delivery_id and o.status = 'ORDER')")
+                .getSingleResult()).longValue();
+    }
+
+    private List<Long> toIds(List<?> ids) {
+        return ids.stream().map(id -> ((Number) id).longValue()).collect(toList());
+    }
+}
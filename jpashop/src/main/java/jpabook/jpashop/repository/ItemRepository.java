@@ -1,23 +1,69 @@
 package jpabook.jpashop.repository;
 import jakarta.persistence.EntityManager;
+import jpabook.jpashop.cache.CatalogCache;
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 @Repository
 @RequiredArgsConstructor
 public class ItemRepository {
     private final EntityManager em;
+    private final CatalogCache catalogCache;
     public void save(Item item) {
         if (item.getId() == null) {
             em.persist(item);
         } else {
             em.merge(item);
+            catalogCache.evictItem(item.getId());
         }
     }
     public Item findOne(Long id) {
         return em.find(Item.class, id);
     }
+    public Item getReference(Long id) {
+        return em.getReference(Item.class, id);
+    }
+
+    /**
+     * 재고 차감 - 조건부 UPDATE 한번
+     * 재고가 충분할 때만 차감하고 수정된 row 수를 반환한다. (0이면 재고 부족)
+     * 벌크 연산이라 영속성 컨텍스트에 올라와 있는 Item 의 stockQuantity 는 바뀌지 않는다.
+     */
+    public int removeStock(Long itemId, int quantity) {
+        return em.createQuery(
+                        "update Item i set i.stockQuantity = i.stockQuantity - :quantity" +
+                                " where i.id = :itemId and i.stockQuantity >= :quantity")
+                .setParameter("quantity", quantity)
+                .setParameter("itemId", itemId)
+                .executeUpdate();
+    }
+    /**
+     * 재고 증감 - UPDATE 한번 (delta 가 음수면 차감)
+     */
+    public int addStock(Long itemId, int delta) {
+        return em.createQuery(
+                        "update Item i set i.stockQuantity = i.stockQuantity + :delta" +
+                                " where i.id = :itemId")
+                .setParameter("delta", delta)
+                .setParameter("itemId", itemId)
+                .executeUpdate();
+    }
+    /**
+     * 재고를 지정한 값으로 변경 - UPDATE 한번 (재고 원장 reset)
+     */
+    public int setStock(Long itemId, int stockQuantity) {
+        return em.createQuery("update Item i set i.stockQuantity = :stockQuantity where i.id = :itemId")
+                .setParameter("stockQuantity", stockQuantity)
+                .setParameter("itemId", itemId)
+                .executeUpdate();
+    }
+    public List<Item> findAllById(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
     public List<Item> findAll() {
         return em.createQuery("select i from Item i",Item.class).getResultList();
     }
@@ -6,6 +6,7 @@ import jpabook.jpashop.domain.Member;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -23,11 +24,53 @@ public class MemberRepository {
         return em.find(Member.class, id);
     }
 
+    public Member getReference(Long id){
+        return em.getReference(Member.class, id);
+    }
+
     public List<Member> findAll(){
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
     }
 
+    public List<Member> findAllById(Collection<Long> ids){
+        return em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    //이름 인덱스 구성용 (id, name)
+    public List<Object[]> findAllIdAndName(){
+        return em.createQuery("select m.id, m.name from Member m", Object[].class)
+                .getResultList();
+    }
+
+    //이름 필터 구성용
+    public List<String> findAllNames(){
+        return em.createQuery("select m.name from Member m where m.name is not null", String.class)
+                .getResultList();
+    }
+
+    //중복 확인 - 엔티티를 읽지 않고 uk_member_name 인덱스에서 있는지만 본다
+    public boolean existsByName(String name){
+        return !em.createQuery("select m.id from Member m where m.name = :name", Long.class)
+                .setParameter("name", name)
+                .setMaxResults(1)
+                .getResultList().isEmpty();
+    }
+
+    //names 중 이미 있는 이름
+    public List<String> findExistingNames(Collection<String> names){
+        return em.createQuery("select m.name from Member m where m.name in :names", String.class)
+                .setParameter("names", names)
+                .getResultList();
+    }
+
+    //제약 위반은 여기서 DataIntegrityViolationException 으로 바뀐다 (@Repository 예외 변환)
+    public void flush(){
+        em.flush();
+    }
+
     public List<Member> findByName(String name){
         return em.createQuery("select m from Member m where m.name= :name", Member.class)
                 .setParameter("name", name)
@@ -0,0 +1,55 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.exception.InvalidCursorException;
+import lombok.Getter;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 키셋(seek) 페이징 커서
+ * - 마지막으로 읽은 주문의 (orderDate, orderId) 를 기억한다.
+ * - API 에는 내부 구조를 알 수 없는 토큰(Base64)으로만 노출한다.
+ */
+@Getter
+public class OrderCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime orderDate;
+    private final Long orderId;
+
+    public OrderCursor(LocalDateTime orderDate, Long orderId) {
+        this.orderDate = orderDate;
+        this.orderId = orderId;
+    }
+
+    public String encode() {
+        String raw = orderDate + SEPARATOR + orderId;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 토큰이 없으면 첫 페이지(null), 형식이 틀리면 InvalidCursorException (400)
+     */
+    public static OrderCursor decode(String token) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int idx = raw.indexOf(SEPARATOR);
+            if (idx < 0) {
+                throw new InvalidCursorException("잘못된 커서입니다.");
+            }
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, idx)),
+                    Long.valueOf(raw.substring(idx + 1)));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new InvalidCursorException("잘못된 커서입니다.", e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package jpabook.jpashop.repository;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록 화면(orderList.html) 한 줄
+ * 화면에 필요한 컬럼만 조회한다. 대표상품은 주문상품 중 id 가 가장 작은 것
+ */
+@Data
+@AllArgsConstructor
+public class OrderListRow {
+    private Long orderId;
+    private String memberName;
+    private String itemName; //대표상품 이름
+    private int orderPrice; //대표상품 주문가격
+    private int count; //대표상품 주문수량
+    private OrderStatus status;
+    private LocalDateTime orderDate;
+}
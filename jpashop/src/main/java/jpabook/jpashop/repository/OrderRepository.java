@@ -1,17 +1,22 @@
 package jpabook.jpashop.repository;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderSearch;
+import jpabook.jpashop.domain.OrderStatus;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Repository
 public class OrderRepository {
@@ -23,9 +28,146 @@ public class OrderRepository {
     public Order findOne(Long id) {
         return em.find(Order.class, id);
     }
+    /**
+     * 주문 검색 (동적 조건)
+     * - 조건 조합(없음/상태/회원명/상태+회원명/회원id/상태+회원id)마다 JPQL 을 미리 만들어 두고 골라서 쓴다.
+     *   실행할 때 문자열을 조립하지 않고, 같은 문자열이라 하이버네이트 쿼리 플랜 캐시도 그대로 재사용된다.
+     * - 회원, 배송은 페치 조인
+     * - 키셋 페이징: lastOrderId 보다 작은 id 부터 limit 건 (최신 주문 순)
+     */
     public List<Order> findAll(OrderSearch orderSearch) {
-        //... 검색 로직
-        return null;
+        return search(SEARCH_QUERIES, orderSearch, null, Order.class);
+    }
+
+    /**
+     * 회원명 대신 회원 id 후보로 검색 (MemberNameIndex 로 미리 구한 id, like 스캔 없음)
+     */
+    public List<Order> findAll(OrderSearch orderSearch, Collection<Long> memberIds) {
+        return search(SEARCH_QUERIES, orderSearch, memberIds, Order.class);
+    }
+
+    /**
+     * 주문 목록 화면용 검색 - 엔티티 대신 OrderListRow 로 화면에 필요한 컬럼만 조회 (쿼리 1번, 지연로딩 없음)
+     * 검색 조건은 findAll 과 같다.
+     */
+    public List<OrderListRow> findListRows(OrderSearch orderSearch) {
+        return search(LIST_ROW_QUERIES, orderSearch, null, OrderListRow.class);
+    }
+
+    public List<OrderListRow> findListRows(OrderSearch orderSearch, Collection<Long> memberIds) {
+        return search(LIST_ROW_QUERIES, orderSearch, memberIds, OrderListRow.class);
+    }
+
+    private static final String[] SEARCH_QUERIES = searchQueries(
+            "select o from Order o" +
+                    " join fetch o.member m" +
+                    " join fetch o.delivery d", "");
+    //대표상품은 서브쿼리로 고른다 (주문상품 중 id 가 가장 작은 것)
+    private static final String[] LIST_ROW_QUERIES = searchQueries(
+            "select new jpabook.jpashop.repository.OrderListRow(o.id, m.name, i.name, oi.orderPrice, oi.count, o.status, o.orderDate)" +
+                    " from Order o" +
+                    " join o.member m" +
+                    " join o.orderItems oi" +
+                    " join oi.item i",
+            " and oi.id = (select min(oi2.id) from OrderItem oi2 where oi2.order = o)");
+
+    /**
+     * 조건 조합별 JPQL, 인덱스는 searchShape() 참고
+     * select 절에서 주문은 o, 회원은 m 으로 써야 한다. condition 은 항상 붙는 추가 조건 (" and ..." 형태)
+     */
+    private static String[] searchQueries(String select, String condition) {
+        String where = select + " where o.id < :lastOrderId" + condition;
+        String orderBy = " order by o.id desc";
+        return new String[]{
+                where + orderBy,
+                where + " and o.status = :status" + orderBy,
+                where + " and m.name like :name" + orderBy,
+                where + " and o.status = :status and m.name like :name" + orderBy,
+                where + " and m.id in :memberIds" + orderBy,
+                where + " and o.status = :status and m.id in :memberIds" + orderBy
+        };
+    }
+
+    private <T> List<T> search(String[] queries, OrderSearch orderSearch, Collection<Long> memberIds, Class<T> resultClass) {
+        boolean hasStatus = orderSearch.getOrderStatus() != null;
+        boolean hasIds = memberIds != null;
+        boolean hasName = !hasIds && StringUtils.hasText(orderSearch.getMemberName());
+        TypedQuery<T> query = em.createQuery(queries[searchShape(hasStatus, hasName, hasIds)], resultClass)
+                .setParameter("lastOrderId", orderSearch.getLastOrderId() == null ? Long.MAX_VALUE : orderSearch.getLastOrderId())
+                .setMaxResults(orderSearch.getPageSize());
+        if (hasStatus) {
+            query.setParameter("status", orderSearch.getOrderStatus());
+        }
+        if (hasName) {
+            query.setParameter("name", "%" + orderSearch.getMemberName() + "%");
+        }
+        if (hasIds) {
+            query.setParameter("memberIds", memberIds);
+        }
+        return query.getResultList();
+    }
+
+    private static int searchShape(boolean hasStatus, boolean hasName, boolean hasIds) {
+        return (hasStatus ? 1 : 0) + (hasName ? 2 : 0) + (hasIds ? 4 : 0);
+    }
+    /**
+     * 주문 취소용 조회 - 배송과 함께 row 락 (select ... for update), 없으면 null
+     * 같은 주문을 동시에 취소하거나 배송완료 작업(DeliveryCompletionJob)과 겹쳐도, 락을 얻은 뒤 커밋된 상태로 판단한다.
+     */
+    public Order findOneForUpdate(Long id) {
+        return em.createQuery(
+                        "select o from Order o" +
+                                " join fetch o.delivery d" +
+                                " where o.id = :id", Order.class)
+                .setParameter("id", id)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+    /**
+     * 대량 취소 대상 조회 - 아직 ORDER 상태인 주문만, 배송과 함께 (select ... for update)
+     * 같은 주문을 동시에 취소해도 한쪽만 재고를 복구하도록 row 락을 잡는다.
+     * id 순으로 잠가서, 겹치는 주문을 동시에 대량 취소해도 서로 반대 순서로 기다리지 않는다. (데드락 방지)
+     */
+    public List<Order> findOrderedForUpdate(Collection<Long> orderIds) {
+        return em.createQuery(
+                        "select o from Order o" +
+                                " join fetch o.delivery d" +
+                                " where o.id in :orderIds and o.status = :status" +
+                                " order by o.id", Order.class)
+                .setParameter("orderIds", orderIds)
+                .setParameter("status", OrderStatus.ORDER)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    /**
+     * 주문 상태를 UPDATE 한번으로 변경 (벌크 연산, 영속성 컨텍스트는 바뀌지 않는다)
+     */
+    public int updateStatus(Collection<Long> orderIds, OrderStatus status) {
+        return em.createQuery("update Order o set o.status = :status where o.id in :orderIds")
+                .setParameter("status", status)
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+    }
+
+    /**
+     * 주문들의 상품별 주문 수량 합계 (itemId -> 수량, 상품 id 순)
+     */
+    public Map<Long, Integer> sumCountByItem(Collection<Long> orderIds) {
+        List<Object[]> rows = em.createQuery(
+                        "select oi.item.id, sum(oi.count) from OrderItem oi" +
+                                " where oi.order.id in :orderIds" +
+                                " group by oi.item.id" +
+                                " order by oi.item.id", Object[].class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+        Map<Long, Integer> result = new TreeMap<>(); //상품 id 순서 - 재고 UPDATE 도 이 순서로 row 락을 잡는다
+        for (Object[] row : rows) {
+            result.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return result;
     }
 //v3.1
     public List<Order> findAllWithMemberDelivery(int offset, int limit) {
@@ -37,6 +179,30 @@ public class OrderRepository {
                 .setMaxResults(limit)
                 .getResultList();
     }
+//v3.2
+    //키셋(seek) 페이징: offset 만큼 읽고 버리지 않고 (orderDate, id) 인덱스에서 바로 다음 위치부터 읽는다.
+    public List<Order> findAllWithMemberDelivery(OrderCursor cursor, int limit) {
+        if (cursor == null) {
+            return em.createQuery(
+                            "select o from Order o" +
+                                    " join fetch o.member m" +
+                                    " join fetch o.delivery d" +
+                                    " order by o.orderDate desc, o.id desc", Order.class)
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+        return em.createQuery(
+                        "select o from Order o" +
+                                " join fetch o.member m" +
+                                " join fetch o.delivery d" +
+                                " where o.orderDate < :orderDate" +
+                                " or (o.orderDate = :orderDate and o.id < :orderId)" +
+                                " order by o.orderDate desc, o.id desc", Order.class)
+                .setParameter("orderDate", cursor.getOrderDate())
+                .setParameter("orderId", cursor.getOrderId())
+                .setMaxResults(limit)
+                .getResultList();
+    }
 //v3
     //distinct 중복제거
     public List<Order> findAllWithItem() {
@@ -0,0 +1,98 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderSummaryRepository {
+
+    private final EntityManager em;
+
+    public void save(OrderSummary summary) {
+        em.persist(summary);
+    }
+
+    public OrderSummary findOne(Long orderId) {
+        return em.find(OrderSummary.class, orderId);
+    }
+
+    public int updateStatus(Collection<Long> orderIds, OrderStatus status) {
+        return em.createQuery("update OrderSummary s set s.status = :status where s.orderId in :orderIds")
+                .setParameter("status", status)
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+    }
+
+    //회원 한명의 주문 요약 전체를 UPDATE 한번으로 변경
+    public int updateMemberName(Long memberId, String memberName) {
+        return em.createQuery("update OrderSummary s set s.memberName = :memberName where s.memberId = :memberId")
+                .setParameter("memberName", memberName)
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+    }
+
+    private static final int MAX_PAGE_LIMIT = 1000;
+    private static final String[] PAGE_QUERIES = pageQueries();
+
+    /**
+     * 조건 조합별 JPQL, 인덱스는 pageShape() 참고
+     */
+    private static String[] pageQueries() {
+        String select = "select s from OrderSummary s";
+        String seek = "(s.orderDate < :orderDate or (s.orderDate = :orderDate and s.orderId < :orderId))";
+        String orderBy = " order by s.orderDate desc, s.orderId desc";
+        return new String[]{
+                select + orderBy,
+                select + " where s.status = :status" + orderBy,
+                select + " where " + seek + orderBy,
+                select + " where s.status = :status and " + seek + orderBy
+        };
+    }
+
+    private static int pageShape(boolean hasStatus, boolean hasCursor) {
+        return (hasStatus ? 1 : 0) + (hasCursor ? 2 : 0);
+    }
+
+    /**
+     * 키셋 페이징 (최신 주문 순), status 가 null 이면 전체
+     */
+    public List<OrderSummary> findPage(OrderCursor cursor, OrderStatus status, int limit) {
+        TypedQuery<OrderSummary> query = em.createQuery(PAGE_QUERIES[pageShape(status != null, cursor != null)], OrderSummary.class)
+                .setMaxResults(Math.min(Math.max(limit, 1), MAX_PAGE_LIMIT));
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (cursor != null) {
+            query.setParameter("orderDate", cursor.getOrderDate())
+                    .setParameter("orderId", cursor.getOrderId());
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * 원본 테이블에서 전체 다시 만들기 (네이티브 SQL, insert-select 한번)
+     * @return 만든 row 수
+     */
+    public int rebuild() {
+        em.createNativeQuery("delete from order_summary").executeUpdate();
+        return em.createNativeQuery(
+                        "insert into order_summary" +
+                                " (order_id, member_id, member_name, city, street, zipcode, status, order_date, total_price, item_count)" +
+                                " select o.order_id, m.member_id, m.name, d.city, d.street, d.zipcode, o.status, o.order_date," +
+                                " coalesce(sum(oi.order_price * oi.count), 0), count(oi.order_item_id)" +
+                                " from orders o" +
+                                " join member m on m.member_id = o.member_id" +
+                                " join delivery d on d.delivery_id = o.delivery_id" +
+                                " left join order_item oi on oi.order_id = o.order_id" +
+                                " group by o.order_id, m.member_id, m.name, d.city, d.street, d.zipcode, o.status, o.order_date")
+                .executeUpdate();
+    }
+}
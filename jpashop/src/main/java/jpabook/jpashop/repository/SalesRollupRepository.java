@@ -0,0 +1,105 @@
+package jpabook.jpashop.repository;
+
+import jakarta.persistence.EntityManager;
+import jpabook.jpashop.domain.RollupDimension;
+import jpabook.jpashop.domain.SalesRollup;
+import jpabook.jpashop.domain.SalesRollupId;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class SalesRollupRepository {
+
+    private final EntityManager em;
+
+    /**
+     * 집계 row 에 변경량을 더한다. 없으면 만든다. (H2 MERGE, 읽지 않고 쿼리 1번)
+     * sales_rollup 만 건드린다고 알려줘서, 실행 전에 영속성 컨텍스트 전체를 flush 하지 않게 한다.
+     */
+    public void applyDelta(SalesRollupId id, long revenue, long quantity, long orderCount) {
+        em.createNativeQuery(
+                        "merge into sales_rollup t" +
+                                " using (select cast(?1 as date) sales_date, cast(?2 as varchar) dimension, cast(?3 as varchar) dim_key," +
+                                " cast(?4 as bigint) revenue, cast(?5 as bigint) quantity, cast(?6 as bigint) order_count) s" +
+                                " on t.sales_date = s.sales_date and t.dimension = s.dimension and t.dim_key = s.dim_key" +
+                                " when matched then update set revenue = t.revenue + s.revenue," +
+                                " quantity = t.quantity + s.quantity, order_count = t.order_count + s.order_count" +
+                                " when not matched then insert (sales_date, dimension, dim_key, revenue, quantity, order_count)" +
+                                " values (s.sales_date, s.dimension, s.dim_key, s.revenue, s.quantity, s.order_count)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("sales_rollup")
+                .setParameter(1, id.getSalesDate())
+                .setParameter(2, id.getDimension().name())
+                .setParameter(3, id.getDimKey())
+                .setParameter(4, revenue)
+                .setParameter(5, quantity)
+                .setParameter(6, orderCount)
+                .executeUpdate();
+    }
+
+    /**
+     * 기준 값 하나의 일별 집계 (from ~ to, 일자 순)
+     */
+    public List<SalesRollup> findDaily(RollupDimension dimension, String dimKey, LocalDate from, LocalDate to) {
+        return em.createQuery("select s from SalesRollup s" +
+                        " where s.id.dimension = :dimension and s.id.dimKey = :dimKey" +
+                        " and s.id.salesDate between :from and :to" +
+                        " order by s.id.salesDate", SalesRollup.class)
+                .setParameter("dimension", dimension)
+                .setParameter("dimKey", dimKey)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    /**
+     * 기간 합계, 매출 순
+     */
+    public List<SalesTotal> findTotals(RollupDimension dimension, LocalDate from, LocalDate to, int limit) {
+        return em.createQuery("select new jpabook.jpashop.repository.SalesTotal(s.id.dimKey, sum(s.revenue), sum(s.quantity), sum(s.orderCount))" +
+                        " from SalesRollup s" +
+                        " where s.id.dimension = :dimension and s.id.salesDate between :from and :to" +
+                        " group by s.id.dimKey" +
+                        " order by sum(s.revenue) desc", SalesTotal.class)
+                .setParameter("dimension", dimension)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 원본 테이블에서 전체 다시 집계 (네이티브 SQL, 기준마다 insert-select 한번)
+     * @return 만든 row 수
+     */
+    public int backfill() {
+        em.createNativeQuery("delete from sales_rollup").executeUpdate();
+        String insert = "insert into sales_rollup (sales_date, dimension, dim_key, revenue, quantity, order_count)";
+        int rows = em.createNativeQuery(insert +
+                        " select cast(o.order_date as date), 'ITEM', cast(oi.item_id as varchar)," +
+                        " sum(oi.order_price * oi.count), sum(oi.count), count(distinct o.order_id)" +
+                        " from orders o join order_item oi on oi.order_id = o.order_id" +
+                        " where o.status = 'ORDER'" +
+                        " group by cast(o.order_date as date), oi.item_id")
+                .executeUpdate();
+        rows += em.createNativeQuery(insert +
+                        " select cast(o.order_date as date), 'MEMBER', cast(o.member_id as varchar)," +
+                        " sum(oi.order_price * oi.count), sum(oi.count), count(distinct o.order_id)" +
+                        " from orders o join order_item oi on oi.order_id = o.order_id" +
+                        " where o.status = 'ORDER'" +
+                        " group by cast(o.order_date as date), o.member_id")
+                .executeUpdate();
+        rows += em.createNativeQuery(insert +
+                        " select cast(o.order_date as date), 'STATUS', o.status," +
+                        " sum(oi.order_price * oi.count), sum(oi.count), count(distinct o.order_id)" +
+                        " from orders o join order_item oi on oi.order_id = o.order_id" +
+                        " group by cast(o.order_date as date), o.status")
+                .executeUpdate();
+        return rows;
+    }
+}
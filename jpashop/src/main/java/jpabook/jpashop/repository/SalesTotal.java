@@ -0,0 +1,15 @@
+package jpabook.jpashop.repository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 기간 합계 (기준 값별)
+ */
+@Data
+@AllArgsConstructor
+public class SalesTotal {
+    private String dimKey;
+    private long revenue;
+    private long quantity;
+    private long orderCount;
+}
@@ -0,0 +1,54 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * V6 플랫 데이터를 주문 단위(OrderQueryDto)로 묶는다.
+ * - order by o.id 로 정렬된 row 를 전제로, 인접한 row 를 한번에 접는다.(single pass)
+ * - groupingBy 처럼 HashMap 이나 row 마다 키 객체를 만들지 않고, 조회 순서도 그대로 유지된다.
+ * - 주문 하나가 완성될 때마다 downstream 으로 넘기므로 스트리밍에도 쓸 수 있다.
+ */
+public class OrderFlatGrouper implements Consumer<OrderFlatDto> {
+
+    private final Consumer<OrderQueryDto> downstream;
+    private OrderQueryDto current;
+
+    public OrderFlatGrouper(Consumer<OrderQueryDto> downstream) {
+        this.downstream = downstream;
+    }
+
+    @Override
+    public void accept(OrderFlatDto row) {
+        if (current == null || !current.getOrderId().equals(row.getOrderId())) {
+            emit();
+            current = new OrderQueryDto(row.getOrderId(), row.getName(), row.getOrderDate(),
+                    row.getOrderStatus(), row.getAddress(), new ArrayList<>());
+        }
+        current.getOrderItems().add(
+                new OrderItemQueryDto(row.getOrderId(), row.getItemName(), row.getOrderPrice(), row.getCount()));
+    }
+
+    /**
+     * 마지막 주문을 내보낸다. 모든 row 를 넘긴 뒤 꼭 호출해야 한다.
+     */
+    public void finish() {
+        emit();
+    }
+
+    private void emit() {
+        if (current != null) {
+            downstream.accept(current);
+            current = null;
+        }
+    }
+
+    public static List<OrderQueryDto> group(List<OrderFlatDto> flats) {
+        List<OrderQueryDto> result = new ArrayList<>();
+        OrderFlatGrouper grouper = new OrderFlatGrouper(result::add);
+        flats.forEach(grouper);
+        grouper.finish();
+        return result;
+    }
+}
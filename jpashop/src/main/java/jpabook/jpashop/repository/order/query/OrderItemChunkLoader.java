@@ -0,0 +1,122 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 주문상품(OrderItem) 컬렉션을 orderId IN 절로 나눠서 조회한다.
+ * - IN 절 하나에 id 를 전부 넣으면 DB 파라미터 제한을 넘고, 리스트 크기마다 쿼리 플랜이 따로 캐시된다.
+ * - id 를 chunkSize 단위로 자르고, 마지막 조각은 2의 거듭제곱 크기로 채워서(패딩) 쿼리 플랜을 재사용한다.
+ * - 조각들은 크기가 제한된 스레드 풀에서 동시에 실행되고, 각자 읽기 전용 EntityManager 를 쓴다.
+ *
+ * 참고: 별도 커넥션에서 조회하므로 호출한 쪽 트랜잭션에서 아직 커밋하지 않은 데이터는 보이지 않는다.
+ */
+@Repository
+public class OrderItemChunkLoader {
+
+    private static final String ORDER_ITEM_QUERY =
+            "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
+            " from OrderItem oi" +
+            " join oi.item i" +
+            " where oi.order.id in :orderIds";
+
+    private final EntityManagerFactory emf;
+    private final int chunkSize;
+    private final ExecutorService executor;
+
+    public OrderItemChunkLoader(EntityManagerFactory emf,
+                                @Value("${jpashop.order-item-loader.chunk-size:512}") int chunkSize,
+                                @Value("${jpashop.order-item-loader.threads:4}") int threads) {
+        this.emf = emf;
+        this.chunkSize = chunkSize;
+        AtomicInteger seq = new AtomicInteger();
+        //큐가 가득 차면 호출한 스레드가 직접 실행 -> 스레드와 대기열 모두 크기가 제한된다
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 16),
+                r -> {
+                    Thread t = new Thread(r, "order-item-loader-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public Map<Long, List<OrderItemQueryDto>> load(List<Long> orderIds) {
+        Map<Long, List<OrderItemQueryDto>> result = new HashMap<>();
+        if (orderIds.isEmpty()) {
+            return result;
+        }
+        List<List<Long>> chunks = chunk(orderIds);
+        if (chunks.size() == 1) {
+            merge(result, loadChunk(chunks.get(0)));
+            return result;
+        }
+        List<CompletableFuture<List<OrderItemQueryDto>>> futures = new ArrayList<>(chunks.size());
+        for (List<Long> chunk : chunks) {
+            futures.add(CompletableFuture.supplyAsync(() -> loadChunk(chunk), executor));
+        }
+        for (CompletableFuture<List<OrderItemQueryDto>> future : futures) {
+            merge(result, future.join());
+        }
+        return result;
+    }
+
+    private List<List<Long>> chunk(List<Long> orderIds) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < orderIds.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, orderIds.size());
+            chunks.add(pad(new ArrayList<>(orderIds.subList(from, to))));
+        }
+        return chunks;
+    }
+
+    /**
+     * 마지막 id 를 반복해서 2의 거듭제곱(최대 chunkSize) 크기로 맞춘다. 중복 id 는 결과에 영향이 없다.
+     */
+    private List<Long> pad(List<Long> ids) {
+        int size = Math.min(Integer.highestOneBit(ids.size() - 1) << 1, chunkSize);
+        Long last = ids.get(ids.size() - 1);
+        while (ids.size() < size) {
+            ids.add(last);
+        }
+        return ids;
+    }
+
+    private List<OrderItemQueryDto> loadChunk(List<Long> orderIds) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.unwrap(Session.class).setDefaultReadOnly(true);
+            return em.createQuery(ORDER_ITEM_QUERY, OrderItemQueryDto.class)
+                    .setParameter("orderIds", orderIds)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    private void merge(Map<Long, List<OrderItemQueryDto>> result, List<OrderItemQueryDto> orderItems) {
+        for (OrderItemQueryDto orderItem : orderItems) {
+            result.computeIfAbsent(orderItem.getOrderId(), id -> new ArrayList<>()).add(orderItem);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,132 @@
+package jpabook.jpashop.repository.order.query;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * V7 - 네이티브 SQL 결과(ResultSet)를 DTO 없이 바로 JSON 으로 쓴다.
+ * - 주문 + 주문상품을 조인한 플랫 데이터를 order_id 순으로 읽으면서, 주문이 바뀔 때 객체/배열을 열고 닫는다.
+ * - JSON 모양은 V5(OrderQueryDto)와 같다.
+ * - 결과를 메모리에 모으지 않으므로 건수와 상관없이 힙 사용량이 일정하다.
+ */
+@Repository
+public class OrderJsonQueryRepository {
+
+    private static final int FETCH_SIZE = 500;
+    //jackson-datatype-jsr310 의 LocalDateTime 기본 형식과 같다
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private static final String ORDERS_SQL =
+            "select o.order_id, m.name, o.order_date, o.status, d.city, d.street, d.zipcode," +
+                    " i.name, oi.order_price, oi.count" +
+                    " from orders o" +
+                    " join member m on m.member_id = o.member_id" +
+                    " join delivery d on d.delivery_id = o.delivery_id" +
+                    " left join order_item oi on oi.order_id = o.order_id" +
+                    " left join item i on i.item_id = oi.item_id" +
+                    " order by o.order_id, oi.order_item_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderJsonQueryRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * 주문 전체를 JSON 배열로 쓴다.
+     * @return 주문 수
+     */
+    public long writeAll(JsonGenerator gen) throws IOException {
+        RowWriter writer = new RowWriter(gen);
+        gen.writeStartArray();
+        try {
+            jdbcTemplate.query(ORDERS_SQL, writer::write);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+        gen.writeEndArray();
+        return writer.orders;
+    }
+
+    private static class RowWriter {
+        private final JsonGenerator gen;
+        private long currentOrderId = -1;
+        private boolean itemsOpen; //orderItems 배열을 열었는지 (주문상품이 없으면 V5 처럼 null)
+        long orders;
+
+        RowWriter(JsonGenerator gen) {
+            this.gen = gen;
+        }
+
+        void write(ResultSet rs) throws SQLException {
+            try {
+                long orderId = rs.getLong(1);
+                if (orderId != currentOrderId) {
+                    finish();
+                    startOrder(rs, orderId);
+                }
+                if (itemsOpen) {
+                    gen.writeStartObject();
+                    gen.writeStringField("itemName", rs.getString(8));
+                    gen.writeNumberField("orderPrice", rs.getInt(9));
+                    gen.writeNumberField("count", rs.getInt(10));
+                    gen.writeEndObject();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void startOrder(ResultSet rs, long orderId) throws SQLException, IOException {
+            currentOrderId = orderId;
+            orders++;
+            gen.writeStartObject();
+            gen.writeNumberField("orderId", orderId);
+            gen.writeStringField("name", rs.getString(2));
+            Timestamp orderDate = rs.getTimestamp(3);
+            gen.writeFieldName("orderDate");
+            if (orderDate == null) {
+                gen.writeNull();
+            } else {
+                gen.writeString(DATE_TIME.format(orderDate.toLocalDateTime()));
+            }
+            gen.writeStringField("orderStatus", rs.getString(4));
+            gen.writeObjectFieldStart("address");
+            gen.writeStringField("city", rs.getString(5));
+            gen.writeStringField("street", rs.getString(6));
+            gen.writeStringField("zipcode", rs.getString(7));
+            gen.writeEndObject();
+            gen.writeFieldName("orderItems");
+            rs.getInt(9);
+            itemsOpen = !rs.wasNull(); //left join: 주문상품이 없으면 null
+            if (itemsOpen) {
+                gen.writeStartArray();
+            } else {
+                gen.writeNull();
+            }
+        }
+
+        /** 열려 있는 주문을 닫는다 */
+        void finish() throws IOException {
+            if (currentOrderId == -1) {
+                return;
+            }
+            if (itemsOpen) {
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+            currentOrderId = -1;
+        }
+    }
+}
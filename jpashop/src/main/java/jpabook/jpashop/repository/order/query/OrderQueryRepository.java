@@ -1,14 +1,24 @@
 package jpabook.jpashop.repository.order.query;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jpabook.jpashop.repository.OrderCursor;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
 import org.springframework.stereotype.Repository;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 @Repository
 @RequiredArgsConstructor
 public class OrderQueryRepository {
+    private static final int STREAM_FETCH_SIZE = 500; //JDBC 에서 한번에 가져오는 row 수
+    private static final int STREAM_CLEAR_INTERVAL = 1000; //영속성 컨텍스트를 비우는 주기
     private final EntityManager em;
+    private final OrderItemChunkLoader orderItemChunkLoader;
     /**
      * V4
      * 컬렉션은 별도로 조회
@@ -29,13 +39,15 @@ public class OrderQueryRepository {
      * 1:N 관계(컬렉션)를 제외한 나머지를 한번에 조회
      */
     private List<OrderQueryDto> findOrders() {
-        return em.createQuery(
-        "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
-                " from Order o" +
-                " join o.member m" +
-                " join o.delivery d", OrderQueryDto.class)
+        return em.createQuery(ORDERS_QUERY, OrderQueryDto.class)
                 .getResultList();
     }
+
+    private static final String ORDERS_QUERY =
+            "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+            " from Order o" +
+            " join o.member m" +
+            " join o.delivery d";
     /**
      * 1:N 관계인 orderItems 조회
      */
@@ -68,6 +80,55 @@ public class OrderQueryRepository {
         result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
         return result;
     }
+
+    /**
+     * V5.1
+     * V5 + 페이징
+     * Query: 루트 1번, 컬렉션 (limit / chunk 크기)번 - 병렬 실행
+     * 컬렉션 IN 절을 고정 크기 조각으로 나누므로 limit 이 커져도 DB 파라미터 제한에 걸리지 않는다.
+     */
+    public List<OrderQueryDto> findAllByDto_page(int offset, int limit) {
+        List<OrderQueryDto> result = em.createQuery(ORDERS_QUERY + " order by o.id", OrderQueryDto.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItemChunkLoader.load(toOrderIds(result));
+        result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
+        return result;
+    }
+
+    /**
+     * 회원별 주문 내역 - 최신 주문 순, 키셋 페이징
+     * Query: 루트 1번, 컬렉션 1번 (현재 페이지 주문의 주문상품만)
+     * (member_id, order_date desc, order_id desc) 인덱스에서 커서 위치를 바로 찾아 limit 건만 읽는다. 회원의 주문 수와 무관
+     * order_date <= :orderDate 는 결과에 영향이 없지만 OR 조건만 있으면 인덱스 범위 검색을 못 하는 DB 가 있어서 같이 건다.
+     */
+    public List<OrderQueryDto> findMemberOrders(Long memberId, OrderCursor cursor, int limit) {
+        TypedQuery<OrderQueryDto> query;
+        if (cursor == null) {
+            query = em.createQuery(ORDERS_QUERY +
+                            " where o.member.id = :memberId" +
+                            " order by o.orderDate desc, o.id desc", OrderQueryDto.class);
+        } else {
+            query = em.createQuery(ORDERS_QUERY +
+                            " where o.member.id = :memberId" +
+                            " and o.orderDate <= :orderDate" +
+                            " and (o.orderDate < :orderDate or o.id < :orderId)" +
+                            " order by o.orderDate desc, o.id desc", OrderQueryDto.class)
+                    .setParameter("orderDate", cursor.getOrderDate())
+                    .setParameter("orderId", cursor.getOrderId());
+        }
+        List<OrderQueryDto> result = query
+                .setParameter("memberId", memberId)
+                .setMaxResults(limit)
+                .getResultList();
+        if (!result.isEmpty()) {
+            Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
+            result.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), new ArrayList<>())));
+        }
+        return result;
+    }
+
     private List<Long> toOrderIds(List<OrderQueryDto> result) {
         return result.stream()
                 .map(o -> o.getOrderId())
@@ -96,16 +157,45 @@ public class OrderQueryRepository {
      *
      */
     public List<OrderFlatDto> findAllByDto_flat() {
-        return em.createQuery(
-                        "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
-                        " from Order o" +
-                                " join o.member m" +
-                                " join o.delivery d" +
-                                " join o.orderItems oi" +
-                                " join oi.item i", OrderFlatDto.class)
+        //같은 주문의 row 가 붙어서 나오도록 정렬 (OrderFlatGrouper 참고)
+        return em.createQuery(FLAT_QUERY + FLAT_ORDER_BY, OrderFlatDto.class)
                 .getResultList();
     }
 
+    private static final String FLAT_QUERY =
+            "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+            " from Order o" +
+                    " join o.member m" +
+                    " join o.delivery d" +
+                    " join o.orderItems oi" +
+                    " join oi.item i";
+    private static final String FLAT_ORDER_BY = " order by o.id, oi.id";
+
+    /**
+     * 스트리밍 조회 (export 용)
+     * - forward-only 스크롤로 한 row 씩 읽어서 action 에 넘긴다. 결과를 List 로 모으지 않는다.
+     * - JDBC fetch size 만큼씩 가져오고, 주기적으로 영속성 컨텍스트를 비워서 힙 사용량을 일정하게 유지한다.
+     * - 트랜잭션(또는 OSIV) 안에서 호출해야 한다.
+     */
+    public long streamAllByDto_flat(Consumer<OrderFlatDto> action) {
+        @SuppressWarnings("unchecked")
+        Query<OrderFlatDto> query = em.createQuery(FLAT_QUERY + FLAT_ORDER_BY, OrderFlatDto.class)
+                .unwrap(Query.class);
+        long count = 0;
+        try (ScrollableResults<OrderFlatDto> rows = query
+                .setReadOnly(true)
+                .setFetchSize(STREAM_FETCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                action.accept(rows.get());
+                if (++count % STREAM_CLEAR_INTERVAL == 0) {
+                    em.clear();
+                }
+            }
+        }
+        return count;
+    }
+
 
 
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 대량 주문 한 줄 (회원, 상품, 수량)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderLine {
+    private Long memberId;
+    private Long itemId;
+    private int count;
+}
@@ -0,0 +1,32 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+/**
+ * 대량 주문 한 줄의 처리 결과
+ * 성공하면 orderId, 실패하면 error 에 사유가 들어간다.
+ */
+@Getter
+public class BulkOrderResult {
+    private final int line; //요청 순서 (0부터)
+    private final Long orderId;
+    private final String error;
+
+    private BulkOrderResult(int line, Long orderId, String error) {
+        this.line = line;
+        this.orderId = orderId;
+        this.error = error;
+    }
+
+    public static BulkOrderResult success(int line, Long orderId) {
+        return new BulkOrderResult(line, orderId, null);
+    }
+
+    public static BulkOrderResult failure(int line, String error) {
+        return new BulkOrderResult(line, null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,156 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.CategoryNotFoundException;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 카테고리 계층
+ * - 전체 트리를 쿼리 1번으로 읽어서 CategoryTree 로 들고 있다. (parent/child 를 한 단계씩 지연 로딩하지 않는다)
+ * - 카테고리를 추가/이동하면 커밋 후에 트리를 새로 만들어 통째로 바꾼다.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class CategoryService {
+
+    private final CategoryRepository categoryRepository;
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final Lock moveLock = new ReentrantLock(); //카테고리 이동은 커밋까지 한 번에 하나씩
+    private volatile CategoryTree tree = CategoryTree.empty();
+
+    public CategoryService(CategoryRepository categoryRepository, ItemRepository itemRepository,
+                           PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        this.itemRepository = itemRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW); //afterCommit 에서도 새 트랜잭션으로 읽는다
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        List<Object[]> rows = readOnlyTx.execute(status -> categoryRepository.findAllIdParentName());
+        tree = CategoryTree.build(rows);
+        if (tree.size() != rows.size()) {
+            log.warn("category tree: {} of {} categories are not reachable from a root", rows.size() - tree.size(), rows.size());
+        }
+    }
+
+    public CategoryTree getTree() {
+        return tree;
+    }
+
+    /**
+     * 카테고리 추가 (parentId 가 null 이면 루트, 없는 parentId 면 CategoryNotFoundException)
+     */
+    @Transactional
+    public Long create(String name, Long parentId) {
+        Category category = new Category();
+        category.setName(name);
+        if (parentId != null) {
+            Category parent = categoryRepository.findOne(parentId);
+            if (parent == null) {
+                throw new CategoryNotFoundException(parentId);
+            }
+            parent.addChildCategory(category);
+        }
+        categoryRepository.save(category);
+        reloadAfterCommit();
+        return category.getId();
+    }
+
+    /**
+     * 카테고리 이동 - 자기 서브트리 아래로는 옮길 수 없다.
+     * 메모리 트리는 커밋 후에야 바뀌므로 검사는 DB 에서 한다. 옮길 카테고리와 새 부모 ~ 루트 경로를 잠그고 올라가며 확인한다.
+     * 이동은 커밋까지 한 번에 하나씩 (moveLock), 동시에 A -> B 아래, B -> A 아래로 옮겨서 순환이 생기지 않게 한다.
+     * (다른 서버와 겹치면 같은 row 락에서 기다리므로 나중 것이 커밋된 부모로 다시 검사한다)
+     */
+    @Transactional
+    public void move(Long categoryId, Long newParentId) {
+        lockMovesUntilCompletion();
+        Category category = categoryRepository.findOneForUpdate(categoryId);
+        if (category == null) {
+            throw new CategoryNotFoundException(categoryId);
+        }
+        Category newParent = null;
+        if (newParentId != null) {
+            newParent = categoryRepository.findOneForUpdate(newParentId);
+            if (newParent == null) {
+                throw new CategoryNotFoundException(newParentId);
+            }
+            Set<Long> visited = new HashSet<>();
+            for (Category c = newParent; c != null && visited.add(c.getId()); c = lockedParent(c)) {
+                if (c.getId().equals(categoryId)) {
+                    throw new IllegalStateException("하위 카테고리로 이동할 수 없습니다.");
+                }
+            }
+        }
+        category.setParent(newParent);
+        reloadAfterCommit();
+    }
+
+    private Category lockedParent(Category category) {
+        return category.getParent() == null ? null : categoryRepository.findOneForUpdate(category.getParent().getId());
+    }
+
+    //트랜잭션이 끝날 때(커밋/롤백) 푼다
+    private void lockMovesUntilCompletion() {
+        moveLock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                moveLock.unlock();
+            }
+        });
+    }
+
+    @Transactional
+    public void addItem(Long categoryId, Long itemId) {
+        categoryRepository.findOne(categoryId).getItems().add(itemRepository.findOne(itemId));
+    }
+
+    /**
+     * 카테고리와 모든 하위 카테고리의 상품 - 서브트리 id 는 메모리에서, 상품은 쿼리 1번
+     */
+    public List<Item> findItemsInSubtree(Long categoryId, int limit) {
+        List<Long> categoryIds = tree.subtreeIds(categoryId);
+        if (categoryIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return categoryRepository.findItemsInCategories(categoryIds, limit);
+    }
+
+    private void reloadAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reload();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reload();
+            }
+        });
+    }
+}
@@ -0,0 +1,150 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * 카테고리 전체 트리 (변경 불가, 메모리)
+ * 전위 순회(pre-order) 번호를 매겨 둔다. 각 노드의 서브트리는 번호 구간 [enter, exit] 이다.
+ * - A 가 B 의 조상(자기 자신 포함)인지: enter(A) <= enter(B) <= exit(A) 로 O(1)
+ * - 서브트리 전체: 전위 순서 배열의 [enter, exit] 구간
+ * 부모를 따라가도 루트에 닿지 않는 노드(순환, 고아)는 트리에 넣지 않는다.
+ */
+public class CategoryTree {
+
+    private final Map<Long, Node> nodes;
+    private final List<Node> preOrder;
+    private final List<Node> roots;
+
+    private CategoryTree(Map<Long, Node> nodes, List<Node> preOrder, List<Node> roots) {
+        this.nodes = nodes;
+        this.preOrder = preOrder;
+        this.roots = roots;
+    }
+
+    public static CategoryTree empty() {
+        return new CategoryTree(Map.of(), List.of(), List.of());
+    }
+
+    /**
+     * rows: (id, parentId, name)
+     */
+    public static CategoryTree build(List<Object[]> rows) {
+        Map<Long, List<Object[]>> byParent = new HashMap<>();
+        List<Object[]> rootRows = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long parentId = (Long) row[1];
+            if (parentId == null) {
+                rootRows.add(row);
+            } else {
+                byParent.computeIfAbsent(parentId, k -> new ArrayList<>()).add(row);
+            }
+        }
+        Comparator<Object[]> byId = Comparator.comparing(row -> (Long) row[0]);
+        rootRows.sort(byId);
+        byParent.values().forEach(children -> children.sort(byId));
+
+        Map<Long, Node> nodes = new HashMap<>();
+        List<Node> preOrder = new ArrayList<>(rows.size());
+        List<Node> roots = new ArrayList<>();
+        //재귀 대신 스택 (깊은 트리에서도 StackOverflowError 없이)
+        Deque<Frame> stack = new ArrayDeque<>();
+        for (Object[] rootRow : rootRows) {
+            Node root = enter(rootRow, null, 0, nodes, preOrder);
+            roots.add(root);
+            stack.push(new Frame(root, byParent.getOrDefault(root.id, List.of())));
+            while (!stack.isEmpty()) {
+                Frame frame = stack.peek();
+                if (frame.next < frame.children.size()) {
+                    Object[] childRow = frame.children.get(frame.next++);
+                    Node child = enter(childRow, frame.node, frame.node.depth + 1, nodes, preOrder);
+                    frame.node.children.add(child);
+                    stack.push(new Frame(child, byParent.getOrDefault(child.id, List.of())));
+                } else {
+                    frame.node.exit = preOrder.size() - 1;
+                    stack.pop();
+                }
+            }
+        }
+        return new CategoryTree(nodes, preOrder, roots);
+    }
+
+    private static Node enter(Object[] row, Node parent, int depth, Map<Long, Node> nodes, List<Node> preOrder) {
+        Node node = new Node((Long) row[0], (String) row[2], parent == null ? null : parent.id, depth, preOrder.size());
+        nodes.put(node.id, node);
+        preOrder.add(node);
+        return node;
+    }
+
+    public Node get(Long categoryId) {
+        return nodes.get(categoryId);
+    }
+
+    public List<Node> getRoots() {
+        return Collections.unmodifiableList(roots);
+    }
+
+    public int size() {
+        return preOrder.size();
+    }
+
+    /**
+     * categoryId 가 ancestorId 의 서브트리(자기 자신 포함)에 있는지 - O(1)
+     */
+    public boolean isInSubtree(Long ancestorId, Long categoryId) {
+        Node ancestor = nodes.get(ancestorId);
+        Node node = nodes.get(categoryId);
+        return ancestor != null && node != null
+                && ancestor.enter <= node.enter && node.enter <= ancestor.exit;
+    }
+
+    /**
+     * 서브트리의 카테고리 id (자기 자신 포함, 전위 순서), 없으면 빈 목록
+     */
+    public List<Long> subtreeIds(Long categoryId) {
+        Node node = nodes.get(categoryId);
+        if (node == null) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(node.exit - node.enter + 1);
+        for (Node n : preOrder.subList(node.enter, node.exit + 1)) {
+            ids.add(n.id);
+        }
+        return ids;
+    }
+
+    @Getter
+    public static class Node {
+        private final Long id;
+        private final String name;
+        private final Long parentId;
+        private final int depth;
+        private final int enter; //전위 순회 번호
+        private int exit; //서브트리의 마지막 번호 (만들 때 한번만 정해진다)
+        private final List<Node> children = new ArrayList<>();
+
+        Node(Long id, String name, Long parentId, int depth, int enter) {
+            this.id = id;
+            this.name = name;
+            this.parentId = parentId;
+            this.depth = depth;
+            this.enter = enter;
+        }
+
+        public List<Node> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+    }
+
+    private static class Frame {
+        final Node node;
+        final List<Object[]> children;
+        int next;
+
+        Frame(Node node, List<Object[]> children) {
+            this.node = node;
+            this.children = children;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package jpabook.jpashop.service;
+
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.repository.DeliveryRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 배송완료 처리 작업 (READY -> COMP)
+ * - 시작할 때 READY 배송의 id 범위를 작업자 수만큼 나누고, 작업자는 자기 구간을 id 순으로 chunk-size 건씩 처리한다.
+ * - 묶음마다 트랜잭션 하나: 후보 조회(잠그지 않음) -> 아직 ORDER 인 주문 row 잠금 -> 조건부 UPDATE (status = READY 인 것만) -> 커밋
+ *   같은 구간을 다른 실행(다른 서버, 수동 실행)이 먼저 처리했으면 UPDATE 된 row 수만 센다. (skip locked 없이도 두 번 세지 않는다)
+ * - 주문 취소(cancelOrder, cancelOrders)도 주문 row 를 먼저 잠그므로, 취소와 배송완료가 겹치면 한쪽만 성공한다.
+ * - jpashop.delivery-job.enabled=true 면 주기적으로 실행한다. (/internal/delivery-job/run 으로 직접 실행 가능)
+ */
+@Slf4j
+@Component
+public class DeliveryCompletionJob {
+
+    private final DeliveryRepository deliveryRepository;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate readOnlyTx;
+    private final boolean enabled;
+    private final int chunkSize;
+    private final int workers;
+    private final ExecutorService executor;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicLong busyNanos = new AtomicLong(); //한 번 이상 실행 중이던 시간 합계
+    private volatile double lastRunRowsPerSecond;
+
+    public DeliveryCompletionJob(DeliveryRepository deliveryRepository, PlatformTransactionManager transactionManager,
+                                 @Value("${jpashop.delivery-job.enabled:false}") boolean enabled,
+                                 @Value("${jpashop.delivery-job.chunk-size:500}") int chunkSize,
+                                 @Value("${jpashop.delivery-job.workers:4}") int workers) {
+        this.deliveryRepository = deliveryRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "delivery-job-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.delivery-job.interval-ms:1000}")
+    public void scheduledRun() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** 설정값(workers, chunk-size)으로 실행 */
+    public synchronized long run() {
+        return run(workers, chunkSize);
+    }
+
+    /**
+     * 작업자 workers 명이 시작 시점의 READY 배송을 모두 처리한다.
+     * @return 배송완료로 바꾼 수
+     */
+    public long run(int workers, int chunkSize) {
+        long start = System.nanoTime();
+        long[] range = tx.execute(status -> deliveryRepository.findReadyIdRange());
+        if (range == null) {
+            return 0;
+        }
+        //[min, max] 를 workers 개 구간 (after, upTo] 으로 나눈다
+        long span = (range[1] - range[0]) / workers + 1;
+        List<Future<Long>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            long after = range[0] - 1 + i * span;
+            long upTo = Math.min(after + span, range[1]);
+            if (after >= upTo) {
+                break;
+            }
+            futures.add(executor.submit(() -> work(after, upTo, chunkSize)));
+        }
+        long total = 0;
+        try {
+            for (Future<Long> future : futures) {
+                total += future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("배송완료 작업이 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("배송완료 작업이 실패했습니다.", e.getCause());
+        }
+        long elapsed = System.nanoTime() - start;
+        busyNanos.addAndGet(elapsed);
+        if (total > 0) {
+            lastRunRowsPerSecond = total / (elapsed / 1_000_000_000.0);
+            log.info("delivery job: {} completed by {} workers in {} ms", total, futures.size(), elapsed / 1_000_000);
+        }
+        return total;
+    }
+
+    //작업자 1명, 자기 구간 (after, upTo] 을 id 순으로 묶음 단위로 커밋
+    private long work(long after, long upTo, int chunkSize) {
+        activeWorkers.incrementAndGet();
+        try {
+            long done = 0;
+            long cursor = after;
+            while (!Thread.currentThread().isInterrupted()) {
+                long from = cursor;
+                List<Long> ids = new ArrayList<>();
+                Integer updated = tx.execute(status -> {
+                    ids.addAll(deliveryRepository.findReadyIds(from, upTo, chunkSize));
+                    if (ids.isEmpty()) {
+                        return 0;
+                    }
+                    List<Long> ordered = deliveryRepository.lockOrdered(ids);
+                    return ordered.isEmpty() ? 0
+                            : deliveryRepository.updateStatus(ordered, DeliveryStatus.READY, DeliveryStatus.COMP);
+                });
+                if (ids.isEmpty()) {
+                    break;
+                }
+                cursor = ids.get(ids.size() - 1);
+                done += updated;
+                completed.add(updated);
+                chunks.increment();
+            }
+            return done;
+        } finally {
+            activeWorkers.decrementAndGet();
+        }
+    }
+
+    public JobStats stats() {
+        long total = completed.sum();
+        long busy = busyNanos.get();
+        return new JobStats(enabled, workers, chunkSize, activeWorkers.get(), total, chunks.sum(),
+                busy == 0 ? 0 : total / (busy / 1_000_000_000.0), lastRunRowsPerSecond,
+                readOnlyTx.execute(status -> deliveryRepository.countReady()));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class JobStats {
+        private boolean enabled;
+        private int workers;
+        private int chunkSize;
+        private int activeWorkers;
+        private long completed;
+        private long chunks;
+        private double rowsPerSecond; //실행 중이던 시간 기준 평균 처리량
+        private double lastRunRowsPerSecond;
+        private long backlog; //아직 READY 인 배송 수 (취소된 주문 제외)
+    }
+}
@@ -0,0 +1,255 @@
+package jpabook.jpashop.service;
+
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 재고 원장 (인메모리, 선택 기능)
+ * jpashop.inventory.ledger.enabled=true 일 때만 등록된다.
+ * - hot-item-ids 로 지정한 인기 상품의 재고를 메모리 카운터(CAS)로 관리한다.
+ *   주문/취소 시 item row 를 건드리지 않고 여기서 차감/복구한다.
+ * - 변경량(delta)은 모아두었다가 주기적으로 상품별 UPDATE 한번으로 DB 에 반영한다. (write-behind)
+ * - 시작할 때 DB 재고를 읽어와서 맞춘다.
+ * - 관리자 재고 수정(reset)은 커밋된 뒤에 반영한다. 그 전에 시작한 주문의 롤백 보상은 무시한다. (generation 으로 구분)
+ *   커밋 직전부터 반영할 때까지는 그 상품의 주문/취소가 기다린다.
+ * 주의: 반영 전에 서버가 죽으면 아직 DB 에 쓰지 않은 delta 는 유실된다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.inventory.ledger.enabled", havingValue = "true")
+public class InventoryLedger {
+
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction; //afterCommit 안에서 쓰기 위한 새 트랜잭션
+    private final Lock flushLock = new ReentrantLock(); //flush 와 reset 의 DB 반영이 섞이지 않도록 (원장 락 다음에 잡는다)
+    private final Set<Long> hotItemIds;
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    public InventoryLedger(ItemRepository itemRepository, PlatformTransactionManager transactionManager,
+                           @Value("${jpashop.inventory.ledger.hot-item-ids:}") Set<Long> hotItemIds) {
+        this.itemRepository = itemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.hotItemIds = hotItemIds;
+    }
+
+    public boolean isTracked(Long itemId) {
+        return hotItemIds.contains(itemId);
+    }
+
+    /**
+     * 재고 차감, 부족하면 NotEnoughStockException
+     * 현재 트랜잭션이 롤백되면 차감한 만큼 되돌린다.
+     */
+    public void reserve(Long itemId, int quantity) {
+        Counter counter = counter(itemId);
+        int generation;
+        counter.lock.readLock().lock(); //CAS 는 그대로 동시에, reset 과만 배타적
+        try {
+            while (true) {
+                int available = counter.available.get();
+                if (available < quantity) {
+                    throw new NotEnoughStockException("need more stock");
+                }
+                if (counter.available.compareAndSet(available, available - quantity)) {
+                    break;
+                }
+            }
+            counter.pendingDelta.addAndGet(-quantity);
+            generation = counter.generation;
+        } finally {
+            counter.lock.readLock().unlock();
+        }
+        compensateOnRollback(itemId, -quantity, generation);
+    }
+
+    /**
+     * 재고 복구 (주문 취소)
+     */
+    public void release(Long itemId, int quantity) {
+        int generation = apply(itemId, quantity, null);
+        compensateOnRollback(itemId, quantity, generation);
+    }
+
+    /**
+     * 관리자가 재고를 직접 수정한 경우, 아직 반영하지 않은 delta 는 버리고 새 값으로 맞춘다.
+     * 현재 트랜잭션이 커밋된 뒤에 반영한다. (롤백되면 원장은 그대로)
+     * - 커밋 직전부터 반영할 때까지 이 상품의 차감/복구를 막는다. 그 사이에 들어온 주문이 새 값에 덮이지 않고 새 값 위에서 차감된다.
+     *   (커밋할 때 flush 되는 UPDATE 가 이 상품의 원장을 기다리는 트랜잭션의 락을 기다리면 안 된다. 관리자 수정은 item row 만 쓴다)
+     * - 진행 중이던 주문이 나중에 롤백되어도 보상하지 않는다. 새 값이 기준이다.
+     * - flush 가 delta 를 꺼내고 아직 DB 에 쓰기 전이면 끝날 때까지 기다린 뒤, DB 에도 새 값을 그대로 쓴다.
+     */
+    public void reset(Long itemId, int stockQuantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyReset(itemId, stockQuantity);
+            return;
+        }
+        Counter counter = counter(itemId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                counter.lock.writeLock().lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                applyReset(itemId, stockQuantity);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (locked) {
+                    locked = false;
+                    counter.lock.writeLock().unlock();
+                }
+            }
+        });
+    }
+
+    private void applyReset(Long itemId, int stockQuantity) {
+        Counter counter = counter(itemId);
+        counter.lock.writeLock().lock(); //락 순서: 원장 -> flushLock (커밋 직전부터 원장 락을 잡고 있으므로)
+        try {
+            flushLock.lock();
+            try {
+                counter.pendingDelta.set(0);
+                counter.available.set(stockQuantity);
+                counter.generation++;
+                //reset 이전 delta 를 담은 flush 가 관리자 값 위에 더해졌을 수 있으므로 다시 덮어쓴다
+                newTransaction.executeWithoutResult(status -> itemRepository.setStock(itemId, stockQuantity));
+            } finally {
+                flushLock.unlock();
+            }
+        } finally {
+            counter.lock.writeLock().unlock();
+        }
+    }
+
+    public int getAvailable(Long itemId) {
+        return counter(itemId).available.get();
+    }
+
+    /**
+     * 모아둔 delta 를 DB 에 반영한다. 실패하면 다음 주기에 다시 시도한다.
+     */
+    @Scheduled(fixedDelayString = "${jpashop.inventory.ledger.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock(); //delta 를 꺼내서 DB 에 쓸 때까지 reset 이 끼어들지 않는다
+        try {
+            Map<Long, Integer> deltas = new HashMap<>();
+            counters.forEach((itemId, counter) -> {
+                int delta = counter.pendingDelta.getAndSet(0);
+                if (delta != 0) {
+                    deltas.put(itemId, delta);
+                }
+            });
+            if (deltas.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        deltas.forEach(itemRepository::addStock));
+            } catch (RuntimeException e) {
+                log.warn("inventory ledger flush failed, retry next time", e);
+                deltas.forEach((itemId, delta) -> counters.get(itemId).pendingDelta.addAndGet(delta));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        hotItemIds.forEach(this::counter);
+        log.info("inventory ledger loaded {} items", counters.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 변경량 반영, expectedGeneration 이 있으면 그 사이 reset 이 없었을 때만 반영한다.
+     * @return 반영한 시점의 generation (반영하지 않았으면 -1)
+     */
+    private int apply(Long itemId, int delta, Integer expectedGeneration) {
+        Counter counter = counter(itemId);
+        counter.lock.readLock().lock();
+        try {
+            if (expectedGeneration != null && expectedGeneration != counter.generation) {
+                return -1;
+            }
+            counter.available.addAndGet(delta);
+            counter.pendingDelta.addAndGet(delta);
+            return counter.generation;
+        } finally {
+            counter.lock.readLock().unlock();
+        }
+    }
+
+    private void compensateOnRollback(Long itemId, int delta, int generation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    apply(itemId, -delta, generation); //그 사이 reset 되었으면 무시
+                }
+            }
+        });
+    }
+
+    private Counter counter(Long itemId) {
+        return counters.computeIfAbsent(itemId, id -> new Counter(loadStock(id)));
+    }
+
+    private int loadStock(Long itemId) {
+        Integer stock = transactionTemplate.execute(status -> {
+            Item item = itemRepository.findOne(itemId);
+            return item == null ? 0 : item.getStockQuantity();
+        });
+        return stock == null ? 0 : stock;
+    }
+
+    static class Counter {
+        final AtomicInteger available;
+        final AtomicInteger pendingDelta = new AtomicInteger(); //DB 에 아직 반영하지 않은 변경량
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(); //reserve/release 는 read, reset 은 write
+        int generation; //reset 할 때마다 증가 (lock 안에서만 읽고 쓴다)
+
+        Counter(int available) {
+            this.available = new AtomicInteger(available);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package jpabook.jpashop.service;
+import jpabook.jpashop.cache.CatalogCache;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.ItemRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
@@ -10,6 +12,8 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemService {
     private final ItemRepository itemRepository;
+    private final ObjectProvider<InventoryLedger> inventoryLedger;
+    private final CatalogCache catalogCache;
     @Transactional
     public void saveItem(Item item) {
         itemRepository.save(item);
@@ -31,5 +35,11 @@ public class ItemService {
         item.setName(name);
         item.setPrice(price);
         item.setStockQuantity(stockQuantity);
+        catalogCache.evictItem(id);
+        //재고 원장이 관리하는 상품이면 원장도 새 재고로 맞춘다 (커밋된 뒤에 반영)
+        InventoryLedger ledger = inventoryLedger.getIfAvailable();
+        if (ledger != null && ledger.isTracked(id)) {
+            ledger.reset(id, stockQuantity);
+        }
     }
 }
\ No newline at end of file
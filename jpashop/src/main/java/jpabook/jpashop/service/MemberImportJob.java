@@ -0,0 +1,94 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 회원 CSV 가져오기 작업 하나의 진행 상황
+ * 가져오는 동안에도 읽을 수 있다. (카운터는 원자적으로 증가, 거절 목록은 잠금)
+ */
+public class MemberImportJob {
+
+    public enum Status {RUNNING, DONE, FAILED}
+
+    @Getter
+    private final Long id;
+    private final int maxRejected;
+    private final long startedAt = System.currentTimeMillis();
+    private volatile long finishedAt;
+    private volatile Status status = Status.RUNNING;
+    private volatile String error;
+    final AtomicLong rowsRead = new AtomicLong();
+    final AtomicLong imported = new AtomicLong();
+    final AtomicLong rejectedCount = new AtomicLong();
+    private final List<RejectedRow> rejected = new ArrayList<>();
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    MemberImportJob(Long id, int maxRejected) {
+        this.id = id;
+        this.maxRejected = maxRejected;
+    }
+
+    void reject(long lineNumber, String line, String reason) {
+        rejectedCount.incrementAndGet();
+        synchronized (rejected) {
+            if (rejected.size() < maxRejected) { //메모리 보호, 개수는 rejectedCount 로 센다
+                rejected.add(new RejectedRow(lineNumber, line, reason));
+            }
+        }
+    }
+
+    void finish(Throwable failure) {
+        if (failure != null) {
+            error = failure.getMessage();
+            status = Status.FAILED;
+        } else {
+            status = Status.DONE;
+        }
+        finishedAt = System.currentTimeMillis();
+        finished.countDown();
+    }
+
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    public Progress progress() {
+        long end = finishedAt == 0 ? System.currentTimeMillis() : finishedAt;
+        return new Progress(id, status, rowsRead.get(), imported.get(), rejectedCount.get(), end - startedAt, error);
+    }
+
+    public List<RejectedRow> rejectedRows(int offset, int limit) {
+        synchronized (rejected) {
+            int from = Math.min(Math.max(offset, 0), rejected.size());
+            int to = Math.min(from + Math.max(limit, 0), rejected.size());
+            return new ArrayList<>(rejected.subList(from, to));
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Progress {
+        private Long jobId;
+        private Status status;
+        private long rowsRead;
+        private long imported;
+        private long rejected;
+        private long elapsedMs;
+        private String error;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class RejectedRow {
+        private long lineNumber;
+        private String line;
+        private String reason;
+    }
+}
@@ -0,0 +1,311 @@
+package jpabook.jpashop.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.web.MemberForm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 회원 CSV 대량 가져오기 (name,city,street,zipcode)
+ * 업로드 파일을 임시 파일로 옮긴 뒤 바로 응답하고, 뒤에서 두 스레드가 나눠서 처리한다.
+ * - 읽기 스레드: 한 줄씩 읽어서(파일 전체를 메모리에 올리지 않는다) MemberForm 규칙으로 검증, 묶음 안 중복 이름 제거, chunk-size 줄씩 묶는다.
+ *   묶음을 넘는 중복 이름은 기억하지 않는다. 앞 묶음이 먼저 커밋되므로 뒤 묶음의 DB 중복 확인(없으면 유니크 제약)에서 걸러진다.
+ * - 저장 스레드: 묶음마다 MemberService.joinBatch (DB 중복 확인 IN 쿼리 1번 + JDBC 배치 insert, 묶음당 트랜잭션 1개)
+ * - 두 스레드 사이 큐는 크기가 제한되어 있어서 저장이 느리면 읽기가 기다린다. (메모리 사용량이 파일 크기와 무관)
+ * 진행 상황과 거절된 줄은 처리 중에도 MemberImportJob 으로 조회할 수 있다.
+ */
+@Slf4j
+@Service
+public class MemberImportService {
+
+    private static final List<ImportRow> END = new ArrayList<>(); //읽기 끝 표시 (참조로 비교)
+    private static final int MAX_JOBS = 100; //최근 작업만 보관
+
+    private final MemberService memberService;
+    private final Validator validator;
+    private final int chunkSize;
+    private final int queueCapacity;
+    private final int maxRejected;
+    private final Semaphore permits; //동시에 실행할 수 있는 가져오기 수
+    private final ExecutorService executor;
+    private final Map<Long, MemberImportJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public MemberImportService(MemberService memberService, Validator validator,
+                               @Value("${jpashop.member-import.chunk-size:1000}") int chunkSize,
+                               @Value("${jpashop.member-import.queue-capacity:4}") int queueCapacity,
+                               @Value("${jpashop.member-import.max-rejected:10000}") int maxRejected,
+                               @Value("${jpashop.member-import.max-concurrent:2}") int maxConcurrent) {
+        this.memberService = memberService;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.queueCapacity = queueCapacity;
+        this.maxRejected = maxRejected;
+        this.permits = new Semaphore(maxConcurrent);
+        AtomicInteger seq = new AtomicInteger();
+        //가져오기 하나에 스레드 2개 (permits 로 작업 수를 제한하므로 대기열이 쌓이지 않는다)
+        this.executor = Executors.newFixedThreadPool(maxConcurrent * 2, r -> {
+            Thread t = new Thread(r, "member-import-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 가져오기 시작 - 파일을 임시 파일로 옮기고 바로 돌아온다.
+     */
+    public MemberImportJob start(MultipartFile file) throws IOException {
+        if (!permits.tryAcquire()) {
+            throw new IllegalStateException("진행 중인 회원 가져오기가 너무 많습니다. 잠시 후 다시 시도해 주세요.");
+        }
+        Path temp;
+        try {
+            temp = Files.createTempFile("member-import-", ".csv");
+            file.transferTo(temp);
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        MemberImportJob job = new MemberImportJob(sequence.incrementAndGet(), maxRejected);
+        jobs.put(job.getId(), job);
+        jobs.keySet().removeIf(id -> id <= job.getId() - MAX_JOBS);
+
+        BlockingQueue<List<ImportRow>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> write(job, queue), executor);
+        CompletableFuture<Void> reader = CompletableFuture.runAsync(() -> read(job, temp, queue, writer), executor);
+        CompletableFuture.allOf(reader, writer).whenComplete((v, e) -> {
+            Throwable failure = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            job.finish(failure);
+            permits.release();
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ex) {
+                log.warn("failed to delete {}", temp, ex);
+            }
+            MemberImportJob.Progress progress = job.progress();
+            log.info("member import {} {}: rows={}, imported={}, rejected={} in {} ms", job.getId(), progress.getStatus(),
+                    progress.getRowsRead(), progress.getImported(), progress.getRejected(), progress.getElapsedMs());
+        });
+        return job;
+    }
+
+    public MemberImportJob findJob(Long jobId) {
+        MemberImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("존재하지 않는 가져오기 작업입니다.");
+        }
+        return job;
+    }
+
+    //읽기 스레드
+    private void read(MemberImportJob job, Path file, BlockingQueue<List<ImportRow>> queue, Future<?> writer) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Set<String> seen = new HashSet<>(); //지금 묶음의 이름만 (묶음마다 비운다)
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1) {
+                    line = line.startsWith("\uFEFF") ? line.substring(1) : line; //엑셀 BOM
+                    List<String> header = splitCsv(line);
+                    if (header != null && header.get(0).trim().equalsIgnoreCase("name")) { //헤더
+                        continue;
+                    }
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                job.rowsRead.incrementAndGet();
+                ImportRow row = parse(job, lineNumber, line, seen);
+                if (row != null) {
+                    chunk.add(row);
+                }
+                if (chunk.size() == chunkSize) {
+                    put(queue, chunk, writer);
+                    chunk = new ArrayList<>(chunkSize);
+                    seen.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                put(queue, chunk, writer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            put(queue, END, writer);
+        }
+    }
+
+    //저장이 느리면 여기서 기다린다. 저장 스레드가 먼저 끝났으면(실패) 그만 읽는다.
+    private void put(BlockingQueue<List<ImportRow>> queue, List<ImportRow> chunk, Future<?> writer) {
+        try {
+            while (!queue.offer(chunk, 1, TimeUnit.SECONDS)) {
+                if (writer.isDone()) {
+                    if (chunk == END) {
+                        return;
+                    }
+                    throw new IllegalStateException("회원 저장이 중단되었습니다.");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("회원 가져오기가 중단되었습니다.", e);
+        }
+    }
+
+    //저장 스레드
+    private void write(MemberImportJob job, BlockingQueue<List<ImportRow>> queue) {
+        try {
+            while (true) {
+                List<ImportRow> chunk = queue.take();
+                if (chunk == END) {
+                    return;
+                }
+                writeChunk(job, chunk);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("회원 가져오기가 중단되었습니다.", e);
+        }
+    }
+
+    private void writeChunk(MemberImportJob job, List<ImportRow> chunk) {
+        Set<String> existing;
+        try {
+            existing = memberService.joinBatch(chunk.stream().map(ImportRow::toMember).collect(toList()));
+        } catch (IllegalStateException e) {
+            //다른 가입과 동시에 같은 이름이 들어와서 묶음 전체가 롤백됨 -> 이 묶음만 한 줄씩 다시
+            for (ImportRow row : chunk) {
+                try {
+                    memberService.join(row.toMember());
+                    job.imported.incrementAndGet();
+                } catch (IllegalStateException ex) {
+                    job.reject(row.lineNumber, row.line, ex.getMessage());
+                }
+            }
+            return;
+        }
+        for (ImportRow row : chunk) {
+            if (existing.contains(row.form.getName())) {
+                job.reject(row.lineNumber, row.line, "이미 존재하는 회원입니다.");
+            } else {
+                job.imported.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 한 줄 -> MemberForm, 검증에 실패하면 거절 목록에 남기고 null
+     */
+    private ImportRow parse(MemberImportJob job, long lineNumber, String line, Set<String> seen) {
+        List<String> fields = splitCsv(line);
+        if (fields == null || fields.size() > 4) {
+            job.reject(lineNumber, line, "CSV 형식이 올바르지 않습니다. (name,city,street,zipcode)");
+            return null;
+        }
+        MemberForm form = new MemberForm();
+        form.setName(field(fields, 0));
+        form.setCity(field(fields, 1));
+        form.setStreet(field(fields, 2));
+        form.setZipcode(field(fields, 3));
+        Set<ConstraintViolation<MemberForm>> violations = validator.validate(form);
+        if (!violations.isEmpty()) {
+            job.reject(lineNumber, line, violations.stream().map(ConstraintViolation::getMessage).sorted().collect(joining(", ")));
+            return null;
+        }
+        if (!seen.add(form.getName())) {
+            job.reject(lineNumber, line, "파일 안에서 중복된 이름입니다."); //같은 묶음 안에서만 (앞 묶음과 겹치면 "이미 존재하는 회원입니다.")
+            return null;
+        }
+        return new ImportRow(lineNumber, line, form);
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 쉼표로 나누기, 큰따옴표로 감싼 필드("a,b", "a""b")를 지원한다. 따옴표가 닫히지 않으면 null
+     * (한 필드가 여러 줄에 걸치는 경우는 지원하지 않는다)
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    static class ImportRow {
+        final long lineNumber;
+        final String line;
+        final MemberForm form;
+
+        ImportRow(long lineNumber, String line, MemberForm form) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.form = form;
+        }
+
+        //묶음 저장이 실패하면 다시 만들어야 하므로 매번 새로 만든다 (id 가 이미 채워졌을 수 있다)
+        Member toMember() {
+            Member member = new Member();
+            member.setName(form.getName());
+            member.setAddress(new Address(form.getCity(), form.getStreet(), form.getZipcode()));
+            return member;
+        }
+    }
+}
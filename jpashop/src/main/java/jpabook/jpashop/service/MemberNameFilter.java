@@ -0,0 +1,189 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 회원 이름 블룸 필터 (인메모리) - 회원가입 중복 확인용
+ * mightContain 이 false 면 그 이름은 확실히 없으므로 DB 조회를 생략한다. true 면 DB 로 확인한다. (오탐 가능)
+ * - 시작할 때 전체 회원 이름으로 만들고, 가입/이름 변경이 커밋되면 추가한다.
+ * - 삭제는 할 수 없다. 바뀌기 전 이름은 남아서 오탐만 늘린다. (rebuild 하면 정리된다)
+ * - 최종 중복 방지는 member.name 유니크 제약이 한다. 필터가 틀려도(재구성 중 누락, 동시 가입) 제약에서 걸린다.
+ */
+@Slf4j
+@Component
+public class MemberNameFilter {
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final boolean enabled;
+    private final long expectedSize;
+    private final double fpp;
+    private volatile Bits bits;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder negatives = new LongAdder(); //DB 조회를 생략한 수
+    private final LongAdder falsePositives = new LongAdder(); //필터는 있다고 했지만 DB 에 없던 수
+
+    public MemberNameFilter(MemberRepository memberRepository, PlatformTransactionManager transactionManager,
+                            @Value("${jpashop.member-filter.enabled:true}") boolean enabled,
+                            @Value("${jpashop.member-filter.expected-size:1000000}") long expectedSize,
+                            @Value("${jpashop.member-filter.fpp:0.01}") double fpp) {
+        this.memberRepository = memberRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedSize = expectedSize;
+        this.fpp = fpp;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        List<String> names = readOnlyTx.execute(status -> memberRepository.findAllNames());
+        Bits rebuilt = new Bits(Math.max(expectedSize, 2L * names.size()), fpp); //회원이 예상보다 많으면 크게 잡는다
+        names.forEach(rebuilt::put);
+        bits = rebuilt;
+        log.info("member name filter built: {} names, {} bits, {} hashes", names.size(), rebuilt.size, rebuilt.hashes);
+    }
+
+    /**
+     * 이미 있을 수도 있는 이름이면 true (DB 로 확인 필요)
+     * 필터가 꺼져 있거나 아직 준비되지 않았으면 항상 true
+     */
+    public boolean mightContain(String name) {
+        Bits current = bits;
+        if (current == null || name == null) {
+            return true;
+        }
+        checks.increment();
+        if (current.mightContain(name)) {
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    /** mightContain 이 true 였는데 DB 에 없었을 때 */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    public void put(String name) {
+        Bits current = bits;
+        if (current != null && name != null) {
+            current.put(name);
+        }
+    }
+
+    public FilterStats stats() {
+        Bits current = bits;
+        if (current == null) {
+            return new FilterStats(false, 0, 0, 0, 0, 0, 0, 0);
+        }
+        return new FilterStats(true, checks.sum(), negatives.sum(), falsePositives.sum(),
+                current.size, current.hashes, current.bitCount.get(), current.expectedFpp());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class FilterStats {
+        private boolean ready;
+        private long checks;
+        private long negatives; //DB 조회 생략
+        private long falsePositives;
+        private long bits;
+        private int hashes;
+        private long bitsSet;
+        private double expectedFpp; //채워진 비트 비율로 계산한 현재 오탐률
+
+        /** 실제 오탐률 = 오탐 / 없는 이름을 물어본 수 */
+        public double getObservedFpp() {
+            long absent = negatives + falsePositives;
+            return absent == 0 ? 0 : (double) falsePositives / absent;
+        }
+    }
+
+    /**
+     * 비트 배열 + 해시 k 개 (64비트 해시 하나를 둘로 나눠서 h1 + i*h2 로 k 개를 만든다)
+     */
+    static class Bits {
+        final long size;
+        final int hashes;
+        final AtomicLongArray words;
+        final AtomicLong bitCount = new AtomicLong();
+
+        Bits(long expectedSize, double fpp) {
+            long n = Math.max(1, expectedSize);
+            size = Math.max(64, (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+            hashes = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+            words = new AtomicLongArray((int) ((size + 63) >>> 6));
+        }
+
+        void put(String name) {
+            long hash = hash64(name);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = index(h1 + i * h2);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old = words.getAndUpdate(word, w -> w | mask);
+                if ((old & mask) == 0) {
+                    bitCount.incrementAndGet();
+                }
+            }
+        }
+
+        boolean mightContain(String name) {
+            long hash = hash64(name);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = index(h1 + i * h2);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double expectedFpp() {
+            return Math.pow((double) bitCount.get() / size, hashes);
+        }
+
+        private long index(int combined) {
+            return (combined < 0 ? ~combined : combined) % size;
+        }
+
+        //FNV-1a 후 murmur3 fmix64 로 비트를 섞는다
+        static long hash64(String s) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < s.length(); i++) {
+                h ^= s.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 회원 이름 부분 검색용 N-gram(3글자) 인덱스 (인메모리)
+ * like '%name%' 는 인덱스를 탈 수 없어서 회원 테이블 전체를 읽는다.
+ * 대신 여기서 이름을 포함하는 회원 id 후보를 구하고, 주문 검색에는 member_id in (...) 으로 넘긴다.
+ * - 시작할 때 전체 회원으로 만들고, 회원 가입/수정이 커밋되면 그때그때 반영한다.
+ * - 검색어가 3글자보다 짧으면 후보를 좁힐 수 없으므로 like 검색으로 넘긴다. (이름 목록 전체를 훑지 않는다)
+ */
+@Slf4j
+@Component
+public class MemberNameIndex {
+
+    private static final int GRAM = 3;
+    private static final int MAX_CANDIDATES = 1000; //이보다 많으면 IN 절 대신 like 로 검색
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public MemberNameIndex(MemberRepository memberRepository, PlatformTransactionManager transactionManager) {
+        this.memberRepository = memberRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        postings.clear();
+        names.clear();
+        readOnlyTx.executeWithoutResult(status ->
+                memberRepository.findAllIdAndName().forEach(row -> put((Long) row[0], (String) row[1])));
+        ready = true;
+        log.info("member name index built: {} members, {} grams", names.size(), postings.size());
+    }
+
+    /**
+     * 회원 추가/이름 변경
+     */
+    public void put(Long memberId, String name) {
+        String old = name == null ? names.remove(memberId) : names.put(memberId, name);
+        if (old != null) {
+            for (String gram : grams(old)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids != null) {
+                    ids.remove(memberId);
+                }
+            }
+        }
+        if (name != null) {
+            for (String gram : grams(name)) {
+                postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(memberId);
+            }
+        }
+    }
+
+    /**
+     * 이름에 query 가 포함된 회원 id
+     * 인덱스가 아직 준비되지 않았거나, 검색어가 3글자보다 짧거나, 후보가 너무 많으면 null (호출한 쪽에서 like 검색)
+     */
+    public Set<Long> search(String query) {
+        if (!ready || query.length() < GRAM) {
+            return null;
+        }
+        Set<Long> result = new HashSet<>();
+        for (Long memberId : candidates(query)) {
+            String name = names.get(memberId);
+            if (name != null && name.contains(query)) { //N-gram 이 모두 있어도 순서가 다를 수 있어서 확인
+                result.add(memberId);
+                if (result.size() > MAX_CANDIDATES) {
+                    return null;
+                }
+            }
+        }
+        return result;
+    }
+
+    private Collection<Long> candidates(String query) {
+        //가장 짧은 posting 목록을 기준으로 나머지와 교집합
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        List<Long> result = new ArrayList<>();
+        for (Long memberId : lists.get(0)) {
+            boolean all = true;
+            for (int i = 1; i < lists.size() && all; i++) {
+                all = lists.get(i).contains(memberId);
+            }
+            if (all) {
+                result.add(memberId);
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> grams(String name) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            grams.add(name.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
@@ -1,14 +1,25 @@
 package jpabook.jpashop.service;
 
+import jpabook.jpashop.cache.CatalogCache;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderSummaryRepository;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
 
 @Service
 @Transactional(readOnly = true)
@@ -17,23 +28,76 @@ public class MemberService {
 
 
     private final MemberRepository memberRepository;
+    private final MemberNameIndex memberNameIndex;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final CatalogCache catalogCache;
+    private final MemberNameFilter memberNameFilter; //처음 보는 이름이면 중복 조회 생략
 
 
     /**
      * 회원가입
+     * 동시에 같은 이름으로 가입하면 둘 다 중복 확인을 통과할 수 있다. 이때는 유니크 제약에서 걸린다.
      */
     @Transactional
     public Long join(Member member){
-        validateDuplicateMember(member);
+        validateDuplicateMember(member.getName());
         memberRepository.save(member);
+        flushUnique();
+        afterCommit(() -> {
+            memberNameIndex.put(member.getId(), member.getName());
+            memberNameFilter.put(member.getName());
+        });
         return member.getId();
     }
 
-    private void validateDuplicateMember(Member member){
-        List<Member> findMembers = memberRepository.findByName(member.getName());
-        if (!findMembers.isEmpty()){
+    /**
+     * 대량 회원가입 (CSV 가져오기)
+     * - 이미 있는 이름은 IN 쿼리 1번으로 확인해서 건너뛴다. 블룸 필터에 없는 이름은 조회 대상에서도 뺀다.
+     * - insert 는 JDBC 배치로 묶인다. (hibernate.jdbc.batch_size, order_inserts)
+     * - 같은 이름이 동시에 가입되어 유니크 제약에 걸리면 전체 롤백 (IllegalStateException)
+     * @return 이미 있어서 건너뛴 이름
+     */
+    @Transactional
+    public Set<String> joinBatch(List<Member> members){
+        List<String> candidates = members.stream()
+                .map(Member::getName)
+                .filter(memberNameFilter::mightContain)
+                .collect(toList());
+        Set<String> existing = candidates.isEmpty() ? new HashSet<>() : new HashSet<>(memberRepository.findExistingNames(candidates));
+        candidates.stream().filter(name -> !existing.contains(name)).forEach(name -> memberNameFilter.recordFalsePositive());
+
+        List<Member> saved = new ArrayList<>(members.size());
+        for (Member member : members) {
+            if (!existing.contains(member.getName())) {
+                memberRepository.save(member);
+                saved.add(member);
+            }
+        }
+        flushUnique();
+        afterCommit(() -> saved.forEach(member -> {
+            memberNameIndex.put(member.getId(), member.getName());
+            memberNameFilter.put(member.getName());
+        }));
+        return existing;
+    }
+
+    private void validateDuplicateMember(String name){
+        if (!memberNameFilter.mightContain(name)) {
+            return; //필터에 없으면 확실히 없는 이름
+        }
+        if (memberRepository.existsByName(name)){
             throw new IllegalStateException("이미 존재하는 회원입니다.");
         }
+        memberNameFilter.recordFalsePositive();
+    }
+
+    //insert/update 를 바로 실행해서 유니크 제약 위반을 여기서 확인한다 (커밋 때 터지면 원인을 알기 어렵다)
+    private void flushUnique(){
+        try {
+            memberRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
     }
 
     //회원 전체 조회
@@ -51,7 +115,33 @@ public class MemberService {
     @Transactional
     public void update(Long id, String name) {
         Member member = memberRepository.findOne(id);
+        if (!Objects.equals(member.getName(), name)) {
+            validateDuplicateMember(name);
+        }
         member.setName(name);
+        flushUnique();
+        orderSummaryRepository.updateMemberName(id, name); //주문 요약의 회원 이름도 같이
+        catalogCache.evictMember(id);
+        afterCommit(() -> {
+            memberNameIndex.put(id, name);
+            memberNameFilter.put(name);
+        });
+    }
+
+    /**
+     * 커밋된 뒤에 실행 (롤백되면 실행하지 않는다)
+     */
+    private void afterCommit(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                task.run();
+            }
+        });
     }
 
 }
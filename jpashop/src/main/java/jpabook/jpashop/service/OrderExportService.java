@@ -0,0 +1,86 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderFlatGrouper;
+import jpabook.jpashop.repository.order.query.OrderJsonQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * 주문 export
+ * - NDJSON(한 줄에 JSON 하나)으로 DB 에서 읽는 대로 바로 출력한다.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final OrderJsonQueryRepository orderJsonQueryRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 주문 전체를 V5 모양의 JSON 배열로 (DTO 없이 ResultSet 에서 바로)
+     */
+    public long writeOrdersJson(OutputStream out) throws IOException {
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            return orderJsonQueryRepository.writeAll(gen);
+        }
+    }
+
+    /**
+     * 주문상품 1건 = 1줄 (OrderFlatDto)
+     */
+    public long exportFlat(OutputStream out) throws IOException {
+        return export(out, OrderFlatDto.class, writer -> orderQueryRepository.streamAllByDto_flat(writer));
+    }
+
+    /**
+     * 주문 1건 = 1줄 (OrderQueryDto)
+     * - 정렬된 플랫 데이터를 OrderFlatGrouper 로 접으면서 주문이 완성될 때마다 쓴다.
+     */
+    public long exportGrouped(OutputStream out) throws IOException {
+        return export(out, OrderQueryDto.class, writer -> {
+            OrderFlatGrouper grouper = new OrderFlatGrouper(writer);
+            orderQueryRepository.streamAllByDto_flat(grouper);
+            grouper.finish();
+        });
+    }
+
+    private <T> long export(OutputStream out, Class<T> type, Consumer<Consumer<T>> source) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(type)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long[] count = {0};
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.setRootValueSeparator(null); //구분자는 직접 줄바꿈으로 쓴다
+            //generator 내부 버퍼(수 KB)가 차면 바로 out 으로 내려가므로 메모리에 쌓이지 않는다
+            source.accept(value -> {
+                try {
+                    writer.writeValue(gen, value);
+                    gen.writeRaw('\n');
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            gen.flush();
+            return count[0];
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,14 +1,30 @@
 package jpabook.jpashop.service;
+import jpabook.jpashop.cache.CatalogCache;
+import jpabook.jpashop.cache.ItemSnapshot;
+import jpabook.jpashop.cache.MemberSnapshot;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderListRow;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSummaryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
 @Service
 @Transactional(readOnly = true)
@@ -17,6 +33,11 @@ public class OrderService {
     private final MemberRepository memberRepository;
     private final OrderRepository orderRepository;
     private final ItemRepository itemRepository;
+    private final ObjectProvider<InventoryLedger> inventoryLedger; //선택 기능 (jpashop.inventory.ledger.enabled)
+    private final MemberNameIndex memberNameIndex;
+    private final OrderSummaryRepository orderSummaryRepository; //조회용 요약, 같은 트랜잭션에서 갱신
+    private final CatalogCache catalogCache;
+    private final SalesRollupService salesRollupService; //일별 매출 집계, 변경량만 반영
     /** 주문 */
     @Transactional
     public Long order(Long memberId, Long itemId, int count) {
@@ -28,25 +49,199 @@ public class OrderService {
         delivery.setAddress(member.getAddress());
         delivery.setStatus(DeliveryStatus.READY);
         //주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(),
-                count);
+        OrderItem orderItem = createOrderItem(item, count);
         //주문 생성
         Order order = Order.createOrder(member, delivery, orderItem);
         //주문 저장
         orderRepository.save(order);
+        orderSummaryRepository.save(OrderSummary.of(order));
+        salesRollupService.recordOrdered(List.of(order));
+        return order.getId();
+    }
+    /**
+     * 주문 - 재고 선점 방식
+     * 재고를 조건부 UPDATE 한번으로 차감한다. (stock_quantity >= count 일 때만)
+     * - 자바에서 읽고-계산하고-쓰는 방식이 아니라서 동시 주문에도 갱신 손실이 없다.
+     * - UPDATE 를 마지막에 실행해서 row 락은 커밋 직전 짧은 시간만 잡는다.
+     * - 상품, 회원은 CatalogCache 에서 읽어서 em.find 를 하지 않는다.
+     */
+    @Transactional
+    public Long orderWithReservation(Long memberId, Long itemId, int count) {
+        //상품 가격, 회원 주소는 캐시에서 (재고는 아래 UPDATE 로 DB 에서 직접)
+        MemberSnapshot member = catalogCache.member(memberId);
+        ItemSnapshot item = catalogCache.item(itemId);
+        //배송정보 생성
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        delivery.setStatus(DeliveryStatus.READY);
+        //주문상품 생성 (엔티티 재고는 건드리지 않는다, 상품은 FK 용 프록시)
+        OrderItem orderItem = OrderItem.createReservedOrderItem(itemRepository.getReference(itemId), item.getPrice(),
+                count);
+        //재고 선점
+        InventoryLedger ledger = inventoryLedger.getIfAvailable();
+        if (ledger != null && ledger.isTracked(itemId)) {
+            ledger.reserve(itemId, count);
+        } else if (itemRepository.removeStock(itemId, count) == 0) {
+            throw new NotEnoughStockException("need more stock");
+        }
+        //주문 생성
+        Order order = Order.createOrder(memberRepository.getReference(memberId), delivery, orderItem);
+        //주문 저장
+        orderRepository.save(order);
+        orderSummaryRepository.save(OrderSummary.of(order, member.getName()));
+        salesRollupService.recordOrdered(List.of(order));
         return order.getId();
     }
+    /**
+     * 대량 주문
+     * - 회원, 상품은 IN 쿼리 2번으로 한꺼번에 조회
+     * - 주문/주문상품/배송 insert 는 JDBC 배치로 묶인다. (hibernate.jdbc.batch_size, order_inserts, 시퀀스 pooled 할당)
+     * - 실패한 줄은 DB 에 쓰기 전에 걸러서 사유만 남기고, 나머지 줄은 그대로 저장한다. (전체 롤백X)
+     *   단 걸러지지 않은 실패(커밋할 때 flush 하다가 나는 제약 조건 위반, 락 타임아웃 등)는 줄을 가릴 수 없으므로 전체가 롤백된다.
+     */
+    @Transactional
+    public List<BulkOrderResult> orderBulk(List<BulkOrderLine> lines) {
+        Map<Long, Member> members = memberRepository.findAllById(
+                        lines.stream().map(BulkOrderLine::getMemberId).filter(Objects::nonNull).collect(toSet()))
+                .stream().collect(toMap(Member::getId, m -> m));
+        Map<Long, Item> items = itemRepository.findAllById(
+                        lines.stream().map(BulkOrderLine::getItemId).filter(Objects::nonNull).collect(toSet()))
+                .stream().collect(toMap(Item::getId, i -> i));
+
+        List<BulkOrderResult> results = new ArrayList<>(lines.size());
+        List<Order> saved = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            BulkOrderLine line = lines.get(i);
+            Member member = members.get(line.getMemberId());
+            Item item = items.get(line.getItemId());
+            if (member == null) {
+                results.add(BulkOrderResult.failure(i, "존재하지 않는 회원입니다."));
+                continue;
+            }
+            if (item == null) {
+                results.add(BulkOrderResult.failure(i, "존재하지 않는 상품입니다."));
+                continue;
+            }
+            if (line.getCount() <= 0) {
+                results.add(BulkOrderResult.failure(i, "주문 수량은 1개 이상이어야 합니다."));
+                continue;
+            }
+            OrderItem orderItem;
+            try {
+                orderItem = createOrderItem(item, line.getCount()); //재고가 부족하면 차감 전에 예외
+            } catch (NotEnoughStockException e) {
+                results.add(BulkOrderResult.failure(i, "재고가 부족합니다."));
+                continue;
+            }
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            delivery.setStatus(DeliveryStatus.READY);
+            Order order = Order.createOrder(member, delivery, orderItem);
+            orderRepository.save(order);
+            orderSummaryRepository.save(OrderSummary.of(order));
+            saved.add(order);
+            results.add(BulkOrderResult.success(i, order.getId()));
+        }
+        salesRollupService.recordOrdered(saved); //같은 날, 같은 상품은 합쳐서 반영
+        return results;
+    }
     /** 주문 취소 */
     @Transactional
     public void cancelOrder(Long orderId) {
-        //주문 엔티티 조회
-        Order order = orderRepository.findOne(orderId);
+        //주문 엔티티 조회 (배송과 함께 row 락, 배송완료 작업과 겹치지 않게)
+        Order order = orderRepository.findOneForUpdate(orderId);
         //주문 취소
-        order.cancel();
+        InventoryLedger ledger = inventoryLedger.getIfAvailable();
+        if (ledger == null) {
+            order.cancel();
+        } else {
+            order.markCanceled();
+            for (OrderItem orderItem : order.getOrderItems()) {
+                Long itemId = orderItem.getItem().getId();
+                if (ledger.isTracked(itemId)) {
+                    ledger.release(itemId, orderItem.getCount());
+                } else {
+                    orderItem.cancel();
+                }
+            }
+        }
+        OrderSummary summary = orderSummaryRepository.findOne(orderId);
+        if (summary != null) { //요약이 없으면 rebuild 때 만들어진다
+            summary.changeStatus(OrderStatus.CANCEL);
+        }
+        salesRollupService.recordCanceled(List.of(order));
+    }
+    /**
+     * 대량 주문 취소
+     * - 취소할 주문(ORDER 상태)과 배송상태를 쿼리 1번으로 조회하고 row 락을 잡는다. 이미 취소된 주문은 건너뛴다.
+     * - 배송완료(COMP)가 하나라도 있으면 전체 취소 불가
+     * - 주문 상태는 UPDATE 1번, 재고는 상품별로 수량을 합쳐서 상품당 UPDATE 1번 (Item 을 하나씩 읽지 않는다)
+     * @return 취소한 주문 수
+     */
+    @Transactional
+    public int cancelOrders(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        List<Order> orders = orderRepository.findOrderedForUpdate(orderIds);
+        List<Long> completed = orders.stream()
+                .filter(o -> o.getDelivery().getStatus() == DeliveryStatus.COMP)
+                .map(Order::getId)
+                .collect(toList());
+        if (!completed.isEmpty()) {
+            throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다. " + completed);
+        }
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        List<Long> cancelIds = orders.stream().map(Order::getId).collect(toList());
+        orderRepository.updateStatus(cancelIds, OrderStatus.CANCEL);
+        InventoryLedger ledger = inventoryLedger.getIfAvailable();
+        orderRepository.sumCountByItem(cancelIds).forEach((itemId, quantity) -> { //상품 id 순으로 UPDATE (데드락 방지)
+            if (ledger != null && ledger.isTracked(itemId)) {
+                ledger.release(itemId, quantity);
+            } else {
+                itemRepository.addStock(itemId, quantity);
+            }
+        });
+        orderSummaryRepository.updateStatus(cancelIds, OrderStatus.CANCEL);
+        salesRollupService.recordCanceled(orders); //주문상품은 배치 페치로 한번에 읽는다
+        return cancelIds.size();
+    }
+    /**
+     * 주문상품 생성 + 재고 차감
+     * 재고 원장이 관리하는 인기 상품은 원장에서, 나머지는 엔티티에서 차감한다.
+     */
+    private OrderItem createOrderItem(Item item, int count) {
+        InventoryLedger ledger = inventoryLedger.getIfAvailable();
+        if (ledger != null && ledger.isTracked(item.getId())) {
+            ledger.reserve(item.getId(), count);
+            return OrderItem.createReservedOrderItem(item, item.getPrice(), count);
+        }
+        return OrderItem.createOrderItem(item, item.getPrice(), count);
     }
     /** 주문 검색 */
      public List<Order> findOrders(OrderSearch orderSearch) {
-     return orderRepository.findAll(orderSearch);
-     }
+        Set<Long> memberIds = memberIdCandidates(orderSearch);
+        if (memberIds == null) {
+            return orderRepository.findAll(orderSearch);
+        }
+        return memberIds.isEmpty() ? new ArrayList<>() : orderRepository.findAll(orderSearch, memberIds);
+    }
+    /** 주문 목록 화면 검색 */
+    public List<OrderListRow> findOrderListRows(OrderSearch orderSearch) {
+        Set<Long> memberIds = memberIdCandidates(orderSearch);
+        if (memberIds == null) {
+            return orderRepository.findListRows(orderSearch);
+        }
+        return memberIds.isEmpty() ? new ArrayList<>() : orderRepository.findListRows(orderSearch, memberIds);
+    }
+    //회원명은 N-gram 인덱스로 회원 id 후보를 먼저 구한다. (null 이면 like 검색)
+    private Set<Long> memberIdCandidates(OrderSearch orderSearch) {
+        if (!StringUtils.hasText(orderSearch.getMemberName())) {
+            return null;
+        }
+        return memberNameIndex.search(orderSearch.getMemberName());
+    }
 
 }
\ No newline at end of file
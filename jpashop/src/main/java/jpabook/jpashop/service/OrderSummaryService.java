@@ -0,0 +1,39 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 주문 요약(order_summary) 조회/재구성
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class OrderSummaryService {
+
+    private final OrderSummaryRepository orderSummaryRepository;
+
+    public List<OrderSummary> findPage(OrderCursor cursor, OrderStatus status, int limit) {
+        return orderSummaryRepository.findPage(cursor, status, limit);
+    }
+
+    /**
+     * 전체 다시 만들기 (한 트랜잭션으로 지우고 다시 넣는다, 주문이 적은 시간에 실행)
+     */
+    @Transactional
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        int count = orderSummaryRepository.rebuild();
+        log.info("order_summary rebuilt: {} rows in {} ms", count, System.currentTimeMillis() - start);
+        return count;
+    }
+}
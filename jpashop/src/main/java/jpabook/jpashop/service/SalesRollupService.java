@@ -0,0 +1,222 @@
+package jpabook.jpashop.service;
+
+import jakarta.annotation.PreDestroy;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.repository.SalesRollupRepository;
+import jpabook.jpashop.repository.SalesTotal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 일별 매출 집계 (sales_rollup)
+ * - 주문/취소 때 주문들의 변경량을 집계 키별로 합친 다음, 커밋된 뒤에 메모리(pending)에 더해 둔다.
+ *   주문 트랜잭션은 sales_rollup 을 건드리지 않는다. 오늘 날짜의 STATUS 집계 row 는 모든 주문이 갱신하므로
+ *   주문 트랜잭션에서 MERGE 하면 그 row 락 때문에 주문 쓰기가 한줄로 선다.
+ * - 모아둔 변경량은 주기적으로 키마다 MERGE 1번으로 반영한다. (write-behind, 반영은 flush 스레드 하나만)
+ *   키를 정렬된 순서로 반영해서 backfill 과 겹쳐도 row 락 순서가 같다.
+ * - 조회(findDaily, findTotals)는 반영 주기만큼 늦을 수 있다.
+ * - backfill 하는 동안에는 변경량이 있는 트랜잭션의 커밋을 잠깐 막는다. (commitLock)
+ *   그래서 backfill 이 읽은 주문은 모두 pending 에서 지워지고, 읽지 못한 주문은 모두 pending 에 남는다. (두 번 세지 않는다)
+ * 주의: 반영 전에 서버가 죽으면 아직 DB 에 쓰지 않은 변경량은 유실된다. (backfill 로 다시 맞춘다)
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class SalesRollupService {
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Lock flushLock = new ReentrantLock(); //flush 와 backfill 이 섞이지 않도록
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock(); //주문 커밋 ~ pending 반영(read) 과 backfill(write)
+    private final Map<SalesRollupId, Delta> pending = new ConcurrentHashMap<>(); //커밋됐지만 DB 에 아직 반영하지 않은 변경량
+
+    public SalesRollupService(SalesRollupRepository salesRollupRepository, PlatformTransactionManager transactionManager) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void recordOrdered(Collection<Order> orders) {
+        Map<SalesRollupId, Delta> deltas = new HashMap<>();
+        for (Order order : orders) {
+            addOrder(deltas, order, OrderStatus.ORDER, 1);
+        }
+        addAfterCommit(deltas);
+    }
+
+    /**
+     * 취소 - 상품/회원 집계에서 빼고, 상태 집계는 ORDER 에서 CANCEL 로 옮긴다.
+     */
+    public void recordCanceled(Collection<Order> orders) {
+        Map<SalesRollupId, Delta> deltas = new HashMap<>();
+        for (Order order : orders) {
+            addOrder(deltas, order, OrderStatus.ORDER, -1);
+            LocalDate day = order.getOrderDate().toLocalDate();
+            Delta canceled = delta(deltas, day, RollupDimension.STATUS, OrderStatus.CANCEL.name());
+            for (OrderItem orderItem : order.getOrderItems()) {
+                canceled.add(orderItem.getTotalPrice(), orderItem.getCount(), 0);
+            }
+            canceled.orderCount++;
+        }
+        addAfterCommit(deltas);
+    }
+
+    /**
+     * 모아둔 변경량을 DB 에 반영한다. 실패하면 다음 주기에 다시 시도한다.
+     */
+    @Scheduled(fixedDelayString = "${jpashop.sales-rollup.flush-interval-ms:1000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //반영은 직접 연 쓰기 트랜잭션에서
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<SalesRollupId, Delta> deltas = new TreeMap<>();
+            for (SalesRollupId id : pending.keySet()) {
+                Delta d = pending.remove(id);
+                if (d != null && !d.isZero()) {
+                    deltas.put(id, d);
+                }
+            }
+            if (deltas.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> deltas.forEach((id, d) ->
+                        salesRollupRepository.applyDelta(id, d.revenue, d.quantity, d.orderCount)));
+            } catch (RuntimeException e) {
+                log.warn("sales rollup flush failed, retry next time", e);
+                deltas.forEach((id, d) -> pending.merge(id, d, Delta::plus));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 전체 다시 집계
+     * 변경량이 있는 트랜잭션은 backfill 이 끝날 때까지 커밋 직전에서 기다린다.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int backfill() {
+        commitLock.writeLock().lock(); //이미 커밋된 주문은 pending 까지 반영이 끝났고, 새 커밋은 들어오지 않는다
+        flushLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            pending.clear(); //모두 DB 에 커밋된 주문이므로 backfill 이 다시 센다
+            Integer rows = transactionTemplate.execute(status -> salesRollupRepository.backfill());
+            log.info("sales_rollup backfilled: {} rows in {} ms", rows, System.currentTimeMillis() - start);
+            return rows == null ? 0 : rows;
+        } finally {
+            flushLock.unlock();
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    public List<SalesRollup> findDaily(RollupDimension dimension, String dimKey, LocalDate from, LocalDate to) {
+        return salesRollupRepository.findDaily(dimension, dimKey, from, to);
+    }
+
+    public List<SalesTotal> findTotals(RollupDimension dimension, LocalDate from, LocalDate to, int limit) {
+        return salesRollupRepository.findTotals(dimension, from, to, limit);
+    }
+
+    //주문 1건을 상품별, 회원별, 상태별 delta 에 더한다 (sign: +1 주문, -1 취소)
+    private void addOrder(Map<SalesRollupId, Delta> deltas, Order order, OrderStatus status, int sign) {
+        LocalDate day = order.getOrderDate().toLocalDate();
+        Delta member = delta(deltas, day, RollupDimension.MEMBER, String.valueOf(order.getMember().getId()));
+        Delta byStatus = delta(deltas, day, RollupDimension.STATUS, status.name());
+        Set<Long> itemIds = new HashSet<>();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            long revenue = sign * (long) orderItem.getTotalPrice();
+            long quantity = sign * (long) orderItem.getCount();
+            Long itemId = orderItem.getItem().getId(); //프록시여도 id 는 초기화 없이 읽는다
+            //같은 상품이 여러 줄이어도 주문 수는 1
+            delta(deltas, day, RollupDimension.ITEM, String.valueOf(itemId))
+                    .add(revenue, quantity, itemIds.add(itemId) ? sign : 0);
+            member.add(revenue, quantity, 0);
+            byStatus.add(revenue, quantity, 0);
+        }
+        member.orderCount += sign;
+        byStatus.orderCount += sign;
+    }
+
+    private Delta delta(Map<SalesRollupId, Delta> deltas, LocalDate day, RollupDimension dimension, String dimKey) {
+        return deltas.computeIfAbsent(new SalesRollupId(day, dimension, dimKey), id -> new Delta());
+    }
+
+    //커밋된 뒤에 pending 에 더한다 (롤백되면 버린다), 트랜잭션 밖이면 바로 더한다
+    //커밋 직전부터 pending 에 더할 때까지 commitLock(read) 을 잡아서 backfill 과 겹치지 않게 한다
+    private void addAfterCommit(Map<SalesRollupId, Delta> deltas) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commitLock.readLock().lock();
+            try {
+                deltas.forEach((id, d) -> pending.merge(id, d, Delta::plus));
+            } finally {
+                commitLock.readLock().unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitLock.readLock().lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                deltas.forEach((id, d) -> pending.merge(id, d, Delta::plus));
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (locked) {
+                    locked = false;
+                    commitLock.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    static class Delta {
+        long revenue;
+        long quantity;
+        long orderCount;
+
+        void add(long revenue, long quantity, long orderCount) {
+            this.revenue += revenue;
+            this.quantity += quantity;
+            this.orderCount += orderCount;
+        }
+
+        //pending.merge 안에서만 호출한다 (키 단위로 원자적)
+        Delta plus(Delta other) {
+            add(other.revenue, other.quantity, other.orderCount);
+            return this;
+        }
+
+        boolean isZero() {
+            return revenue == 0 && quantity == 0 && orderCount == 0;
+        }
+    }
+}
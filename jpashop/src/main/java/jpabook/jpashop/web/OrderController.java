@@ -1,8 +1,8 @@
 package jpabook.jpashop.web;
 import jpabook.jpashop.domain.Member;
-import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderSearch;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.OrderListRow;
 import jpabook.jpashop.service.ItemService;
 import jpabook.jpashop.service.MemberService;
 import jpabook.jpashop.service.OrderService;
@@ -28,14 +28,14 @@ public class OrderController {
     @PostMapping(value = "/order")
     public String order(@RequestParam("memberId") Long memberId,
                         @RequestParam("itemId") Long itemId, @RequestParam("count") int count) {
-        orderService.order(memberId, itemId, count);
+        orderService.orderWithReservation(memberId, itemId, count);
         return "redirect:/orders";
     }
 
     @GetMapping(value = "/orders")
     public String orderList(@ModelAttribute("orderSearch") OrderSearch
                                     orderSearch, Model model) {
-        List<Order> orders = orderService.findOrders(orderSearch);
+        List<OrderListRow> orders = orderService.findOrderListRows(orderSearch);
         model.addAttribute("orders", orders);
         return "order/orderList";
     }
@@ -0,0 +1,98 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ApiFormatConfigTest {
+
+    private final ObjectMapper reflection = mapper();
+    private final ObjectMapper handWritten = mapper().registerModule(ApiFormatConfig.apiDtoModule());
+
+    private final List<OrderQueryDto> orders = List.of(
+            new OrderQueryDto(1L, "userA", LocalDateTime.of(2024, 1, 2, 3, 4, 5), OrderStatus.ORDER,
+                    new Address("서울", "1", "1111"),
+                    List.of(new OrderItemQueryDto(1L, "JPA1 BOOK", 10000, 1),
+                            new OrderItemQueryDto(1L, "JPA2 BOOK", 20000, 2))),
+            new OrderQueryDto(2L, "userB", null, null, null),
+            new OrderQueryDto(3L, "userC", null, null, null, List.of()));
+
+    @Test
+    public void 직접작성한_serializer_모양이_같다() throws Exception {
+        assertEquals(reflection.readTree(reflection.writeValueAsBytes(orders)),
+                reflection.readTree(handWritten.writeValueAsBytes(orders)));
+        MemberApiController.Result<?> members = new MemberApiController.Result<>(
+                List.of(new MemberApiController.MemberDto("userA")));
+        assertEquals(reflection.writeValueAsString(members), handWritten.writeValueAsString(members));
+    }
+
+    @Test
+    public void smile_왕복() throws Exception {
+        ObjectMapper smile = new ObjectMapper(new SmileFactory()).registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .registerModule(ApiFormatConfig.apiDtoModule());
+        assertEquals(reflection.readTree(reflection.writeValueAsBytes(orders)),
+                smile.readTree(smile.writeValueAsBytes(orders)));
+    }
+
+    @Test
+    public void 컬럼형_목록() throws Exception {
+        ColumnarHttpMessageConverter converter = new ColumnarHttpMessageConverter(handWritten, ApiFormatConfig.columnarSchemas());
+        BufferMessage out = new BufferMessage();
+        converter.write(orders, ColumnarHttpMessageConverter.COLUMNAR, out);
+
+        JsonNode root = reflection.readTree(out.body.toByteArray());
+        assertEquals(3, root.get("count").asInt());
+        JsonNode columns = root.get("columns");
+        assertEquals("[1,2,3]", columns.get("orderId").toString());
+        assertEquals("[\"2024-01-02T03:04:05\",null,null]", columns.get("orderDate").toString());
+        assertEquals("[\"서울\",null,null]", columns.get("city").toString());
+        assertEquals("주문0 상품 2개, 주문1 null, 주문2 상품 0개", "[0,2,2,2]", columns.get("orderItems").get("offsets").toString());
+        assertEquals("[1]", columns.get("orderItems").get("nulls").toString());
+        assertEquals("[\"JPA1 BOOK\",\"JPA2 BOOK\"]", columns.get("orderItems").get("itemName").toString());
+    }
+
+    @Test
+    public void 컬럼형_빈목록() throws Exception {
+        ColumnarHttpMessageConverter converter = new ColumnarHttpMessageConverter(handWritten, ApiFormatConfig.columnarSchemas());
+        BufferMessage out = new BufferMessage();
+        converter.write(new MemberApiController.Result<>(List.of()), ColumnarHttpMessageConverter.COLUMNAR, out);
+        assertEquals("{\"count\":0,\"columns\":{}}", out.body.toString());
+    }
+
+    private static ObjectMapper mapper() {
+        return new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    static class BufferMessage implements HttpOutputMessage {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final HttpHeaders headers = new HttpHeaders();
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
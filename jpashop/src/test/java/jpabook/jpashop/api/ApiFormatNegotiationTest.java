@@ -0,0 +1,113 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Accept 헤더로 응답 형식 협상 (JSON, Smile, CBOR, 컬럼형)
+ * 등록된 컨버터 순서 그대로 확인하려고 실제 컨텍스트로 MockMvc 를 만든다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class ApiFormatNegotiationTest {
+
+    @PersistenceContext EntityManager em;
+    @Autowired WebApplicationContext context;
+    MockMvc mockMvc;
+    String memberName;
+
+    @Before
+    public void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        Member member = new Member();
+        memberName = "형식회원" + System.nanoTime();
+        member.setName(memberName);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        em.flush();
+    }
+
+    @Test
+    public void JSON() throws Exception {
+        byte[] body = perform(MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON);
+        assertTrue(containsMember(new ObjectMapper().readTree(body).get("data")));
+    }
+
+    @Test
+    public void 와일드카드는_JSON() throws Exception {
+        byte[] body = perform(MediaType.ALL, MediaType.APPLICATION_JSON);
+        assertTrue(containsMember(new ObjectMapper().readTree(body).get("data")));
+    }
+
+    @Test
+    public void Smile() throws Exception {
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+        byte[] body = perform(smile, smile);
+        assertTrue(containsMember(new ObjectMapper(new SmileFactory()).readTree(body).get("data")));
+    }
+
+    @Test
+    public void CBOR() throws Exception {
+        byte[] body = perform(MediaType.APPLICATION_CBOR, MediaType.APPLICATION_CBOR);
+        assertTrue(containsMember(new ObjectMapper(new CBORFactory()).readTree(body).get("data")));
+    }
+
+    @Test
+    public void 컬럼형() throws Exception {
+        byte[] body = perform(ColumnarHttpMessageConverter.COLUMNAR, ColumnarHttpMessageConverter.COLUMNAR);
+        JsonNode root = new ObjectMapper().readTree(body);
+        JsonNode names = root.get("columns").get("name");
+        assertEquals(root.get("count").asInt(), names.size());
+        boolean found = false;
+        for (JsonNode name : names) {
+            found |= memberName.equals(name.asText());
+        }
+        assertTrue(found);
+    }
+
+    @Test
+    public void 컬럼형_스키마가_없으면_406() throws Exception {
+        mockMvc.perform(get("/api/v1/members").accept(ColumnarHttpMessageConverter.COLUMNAR))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    private byte[] perform(MediaType accept, MediaType expected) throws Exception {
+        return mockMvc.perform(get("/api/v2/members").accept(accept))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(expected))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private boolean containsMember(JsonNode data) {
+        for (JsonNode member : data) {
+            if (memberName.equals(member.get("name").asText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,73 @@
+package jpabook.jpashop.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 주문 API 입력 검증 (목록의 limit, offset, cursor, 대량 주문 본문)
+ * MockMvc 는 기존 테스트 컨텍스트로 직접 만든다. (@AutoConfigureMockMvc 를 쓰면 컨텍스트가 하나 더 뜨고 같은 H2 스키마를 다시 만든다)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderApiControllerTest {
+
+    @Autowired WebApplicationContext context;
+    MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    public void 키셋페이징_limit_보정() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", "0")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", "-5")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v5/simple-orders").param("limit", "0")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v5/simple-orders").param("limit", "-5").param("status", "ORDER"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void 오프셋페이징_offset_limit_보정() throws Exception {
+        mockMvc.perform(get("/api/v5.1/orders").param("offset", "-1").param("limit", "-5")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v5.1/orders").param("limit", "100000")).andExpect(status().isOk());
+    }
+
+    @Test
+    public void 매출합계_limit_보정() throws Exception {
+        mockMvc.perform(get("/api/v1/sales/ITEM").param("from", "2024-01-01").param("to", "2024-01-31").param("limit", "-1"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void 대량주문_lines_없으면_400() throws Exception {
+        mockMvc.perform(post("/api/v1/orders/bulk").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/v1/orders/bulk").contentType(MediaType.APPLICATION_JSON).content("{\"lines\":null}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/v1/orders/bulk").contentType(MediaType.APPLICATION_JSON).content("{\"lines\":[null]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void 키셋페이징_잘못된커서는_400() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders").param("cursor", "not-a-cursor")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/members/1/orders").param("cursor", "%%%")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v5/simple-orders").param("cursor", "not-a-cursor")).andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,62 @@
+package jpabook.jpashop.datasource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * H2 메모리 DB 2개를 primary, replica 로 쓴다.
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private ReadWriteRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTx;
+    private TransactionTemplate writeTx;
+
+    @Before
+    public void setUp() {
+        routing = new ReadWriteRoutingDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1", "sa", ""),
+                new DriverManagerDataSource("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1", "sa", ""));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        writeTx = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    public void 읽기전용은_replica() {
+        assertEquals("REPLICA", readOnlyTx.execute(status -> currentDatabase()));
+        assertEquals("PRIMARY", writeTx.execute(status -> currentDatabase()));
+        assertEquals("트랜잭션 밖은 primary", "PRIMARY", currentDatabase());
+    }
+
+    @Test
+    public void replica_사용불가면_primary() {
+        //Given
+        routing.updateReplicaStatus(false, 5000);
+        //When
+        String database = readOnlyTx.execute(status -> currentDatabase());
+        //Then
+        assertEquals("PRIMARY", database);
+        assertEquals(1L, routing.stats().get("fallbacks"));
+        //회복되면 다시 replica
+        routing.updateReplicaStatus(true, 0);
+        assertEquals("REPLICA", readOnlyTx.execute(status -> currentDatabase()));
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("select database()", String.class);
+    }
+}
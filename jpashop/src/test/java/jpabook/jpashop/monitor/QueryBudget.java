@@ -0,0 +1,16 @@
+package jpabook.jpashop.monitor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메서드에서 실행해도 되는 최대 SQL 수
+ * 넘으면 테스트가 실패한다. (QueryBudgetTestExecutionListener 를 등록해야 동작)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+    int value();
+}
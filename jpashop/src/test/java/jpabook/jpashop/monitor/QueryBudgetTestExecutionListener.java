@@ -0,0 +1,37 @@
+package jpabook.jpashop.monitor;
+
+import org.springframework.test.context.TestContext;
+import org.springframework.test.context.support.AbstractTestExecutionListener;
+
+/**
+ * @QueryBudget 이 붙은 테스트 메서드의 SQL 실행 수를 검사한다.
+ * 트랜잭션 리스너(4000)보다 뒤에 시작하고 먼저 끝나도록 순서를 잡는다. (롤백 전까지 집계)
+ *
+ * 사용법
+ * @TestExecutionListeners(listeners = QueryBudgetTestExecutionListener.class, mergeMode = MERGE_WITH_DEFAULTS)
+ */
+public class QueryBudgetTestExecutionListener extends AbstractTestExecutionListener {
+
+    @Override
+    public int getOrder() {
+        return 5000;
+    }
+
+    @Override
+    public void beforeTestMethod(TestContext testContext) {
+        SqlStatsHolder.begin();
+    }
+
+    @Override
+    public void afterTestMethod(TestContext testContext) {
+        SqlStats stats = SqlStatsHolder.end();
+        QueryBudget budget = testContext.getTestMethod().getAnnotation(QueryBudget.class);
+        if (budget == null || stats == null || testContext.getTestException() != null) {
+            return;
+        }
+        if (stats.getStatements() > budget.value()) {
+            throw new AssertionError(String.format("SQL 예산 초과: %d개 실행 (예산 %d개)%n%s",
+                    stats.getStatements(), budget.value(), String.join("\n", stats.repeatedShapes(1))));
+        }
+    }
+}
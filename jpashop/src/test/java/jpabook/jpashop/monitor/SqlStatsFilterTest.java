@@ -0,0 +1,52 @@
+package jpabook.jpashop.monitor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * JSON 응답에도 X-Sql-* 헤더가 붙는지 확인
+ * MockMvc 는 기존 테스트 컨텍스트로 직접 만들고, 필터는 직접 등록한다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class SqlStatsFilterTest {
+
+    @Autowired WebApplicationContext context;
+    @Autowired SqlStatsFilter sqlStatsFilter;
+    MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(sqlStatsFilter).build();
+    }
+
+    @Test
+    public void JSON응답_헤더() throws Exception {
+        mockMvc.perform(get("/api/v2/members"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Sql-Count"))
+                .andExpect(header().exists("X-Sql-Rows"))
+                .andExpect(header().exists("X-Sql-Time-Ms"))
+                .andExpect(content().string(startsWith("{")));
+    }
+
+    @Test
+    public void 스트리밍응답은_버퍼링하지_않는다() throws Exception {
+        mockMvc.perform(get("/api/v7/orders"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("[")));
+    }
+}
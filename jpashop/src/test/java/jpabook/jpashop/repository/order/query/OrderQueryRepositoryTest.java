@@ -0,0 +1,90 @@
+package jpabook.jpashop.repository.order.query;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderCursor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderQueryRepositoryTest {
+
+    @PersistenceContext
+    EntityManager em;
+    @Autowired OrderQueryRepository orderQueryRepository;
+
+    @Test
+    public void 회원주문내역_키셋페이징() throws Exception {
+        //Given - 주문시간이 같은 주문이 섞여 있다 (id 로 순서를 정한다)
+        Member member = createMember("내역회원");
+        Member other = createMember("다른회원");
+        Book book = createBook();
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Long> created = new ArrayList<>();
+        int[] minutes = {0, 1, 1, 1, 2};
+        for (int minute : minutes) {
+            created.add(createOrder(member, book, base.plusMinutes(minute)));
+        }
+        createOrder(other, book, base.plusMinutes(1));
+        //최신 순: 2분, 1분(id 큰 것부터), 0분
+        List<Long> newestFirst = List.of(created.get(4), created.get(3), created.get(2), created.get(1), created.get(0));
+        em.flush();
+        em.clear();
+        //When
+        List<Long> actual = new ArrayList<>();
+        OrderCursor cursor = null;
+        int pages = 0;
+        do {
+            List<OrderQueryDto> page = orderQueryRepository.findMemberOrders(member.getId(), cursor, 2);
+            page.forEach(o -> assertEquals("현재 페이지 주문의 주문상품", 1, o.getOrderItems().size()));
+            actual.addAll(page.stream().map(OrderQueryDto::getOrderId).collect(toList()));
+            cursor = page.size() < 2 ? null : new OrderCursor(page.get(1).getOrderDate(), page.get(1).getOrderId());
+            pages++;
+        } while (cursor != null);
+        //Then
+        assertEquals(newestFirst, actual);
+        assertEquals(3, pages);
+    }
+
+    private Long createOrder(Member member, Book book, LocalDateTime orderDate) {
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        delivery.setStatus(DeliveryStatus.READY);
+        Order order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, book.getPrice(), 1));
+        order.setOrderDate(orderDate);
+        em.persist(order);
+        return order.getId();
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+
+    private Book createBook() {
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        em.persist(book);
+        return book;
+    }
+}
@@ -0,0 +1,54 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.exception.CategoryNotFoundException;
+import jpabook.jpashop.repository.CategoryRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 카테고리 이동 검사 - 테스트 트랜잭션은 커밋되지 않으므로 메모리 트리에는 아래 카테고리가 없다. (DB 로만 검사된다)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class CategoryServiceTest {
+
+    @Autowired CategoryService categoryService;
+    @Autowired CategoryRepository categoryRepository;
+
+    @Test
+    public void 이동() throws Exception {
+        Long a = categoryService.create("A", null);
+        Long b = categoryService.create("B", null);
+
+        categoryService.move(b, a);
+
+        assertEquals(a, categoryRepository.findOne(b).getParent().getId());
+    }
+
+    @Test
+    public void 하위_카테고리로_이동_불가() throws Exception {
+        Long a = categoryService.create("A", null);
+        Long b = categoryService.create("B", a);
+        Long c = categoryService.create("C", b);
+
+        try {
+            categoryService.move(a, c);
+            fail("예외가 발생해야 한다.");
+        } catch (IllegalStateException e) {
+            assertEquals(b, categoryRepository.findOne(c).getParent().getId());
+        }
+    }
+
+    @Test(expected = CategoryNotFoundException.class)
+    public void 없는_부모로_추가() throws Exception {
+        categoryService.create("A", -1L);
+    }
+}
@@ -0,0 +1,50 @@
+package jpabook.jpashop.service;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CategoryTreeTest {
+
+    @Test
+    public void 서브트리() {
+        //Given
+        //  1 ─ 2 ─ 4
+        //    └ 3
+        //  5
+        CategoryTree tree = CategoryTree.build(List.of(
+                row(4L, 2L, "소설"),
+                row(1L, null, "도서"),
+                row(2L, 1L, "문학"),
+                row(3L, 1L, "IT"),
+                row(5L, null, "음반")));
+        //Then
+        assertEquals(5, tree.size());
+        assertEquals(List.of(1L, 2L, 4L, 3L), tree.subtreeIds(1L));
+        assertEquals(List.of(2L, 4L), tree.subtreeIds(2L));
+        assertTrue(tree.isInSubtree(1L, 4L));
+        assertTrue("자기 자신 포함", tree.isInSubtree(2L, 2L));
+        assertFalse(tree.isInSubtree(2L, 3L));
+        assertFalse(tree.isInSubtree(5L, 1L));
+        assertEquals(2, tree.get(4L).getDepth());
+    }
+
+    @Test
+    public void 순환은_제외() {
+        //Given - 7, 8 은 서로가 부모 (루트에 닿지 않는다)
+        CategoryTree tree = CategoryTree.build(List.of(
+                row(1L, null, "도서"),
+                row(7L, 8L, "A"),
+                row(8L, 7L, "B")));
+        //Then
+        assertEquals(1, tree.size());
+        assertNull(tree.get(7L));
+        assertEquals(List.of(), tree.subtreeIds(7L));
+    }
+
+    private Object[] row(Long id, Long parentId, String name) {
+        return new Object[]{id, parentId, name};
+    }
+}
@@ -0,0 +1,97 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.DeliveryRepository;
+import jpabook.jpashop.repository.OrderRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 배송완료 작업 - 작업자 여러 명, 실행 여러 번이 같은 H2 DB 에서 동시에 실행
+ * 작업자마다 자기 트랜잭션에서 커밋하므로 @Transactional 을 붙이지 않는다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class DeliveryCompletionJobTest {
+
+    @Autowired DeliveryCompletionJob deliveryCompletionJob;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired DeliveryRepository deliveryRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    public void 작업자_여러명_배송완료() throws Exception {
+        //Given
+        Long memberId = createMember();
+        Long itemId = createBook(10000);
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            orderIds.add(orderService.order(memberId, itemId, 1));
+        }
+        Long canceledId = orderService.order(memberId, itemId, 1);
+        orderService.cancelOrder(canceledId);
+        long backlog = deliveryCompletionJob.stats().getBacklog(); //다른 테스트가 남긴 배송 포함
+        //When - 작업자 8명, 묶음 7건 (묶음 수가 많아서 작업자끼리 계속 겹친다)
+        long completed = deliveryCompletionJob.run(8, 7);
+        //Then
+        assertEquals("같은 배송을 두 번 처리하면 안 된다.", backlog, completed);
+        assertEquals(0, deliveryCompletionJob.stats().getBacklog());
+        assertEquals(0, deliveryCompletionJob.run(8, 7));
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Long orderId : orderIds) {
+                assertEquals(DeliveryStatus.COMP, orderRepository.findOne(orderId).getDelivery().getStatus());
+            }
+            assertEquals("취소된 주문은 배송완료하지 않는다.",
+                    DeliveryStatus.READY, orderRepository.findOne(canceledId).getDelivery().getStatus());
+        });
+    }
+
+    @Test
+    public void 같은구간_동시실행() throws Exception {
+        //Given
+        Long memberId = createMember();
+        Long itemId = createBook(10000);
+        for (int i = 0; i < 200; i++) {
+            orderService.order(memberId, itemId, 1);
+        }
+        long backlog = deliveryCompletionJob.stats().getBacklog();
+        //When - 두 번의 실행이 같은 id 범위를 같은 순서로 나눠 가진다 (다른 서버에서 동시에 돈 경우)
+        CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> deliveryCompletionJob.run(4, 5));
+        CompletableFuture<Long> second = CompletableFuture.supplyAsync(() -> deliveryCompletionJob.run(4, 5));
+        //Then
+        assertEquals("겹친 묶음은 UPDATE 된 row 만 센다.", backlog, first.get() + second.get());
+        assertEquals(0, deliveryCompletionJob.stats().getBacklog());
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("배송회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
@@ -0,0 +1,102 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.ItemRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * 재고 원장 reset 과 주문 트랜잭션 롤백 보상이 겹치는 경우
+ * 트랜잭션은 TransactionSynchronizationManager 로 직접 흉내 낸다. (DB 없음)
+ */
+public class InventoryLedgerTest {
+
+    ItemRepository itemRepository = mock(ItemRepository.class);
+    InventoryLedger ledger;
+
+    @Before
+    public void setUp() {
+        Book book = new Book();
+        book.setStockQuantity(100);
+        when(itemRepository.findOne(1L)).thenReturn(book);
+        ledger = new InventoryLedger(itemRepository, mock(PlatformTransactionManager.class), Set.of(1L));
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void reset_이전_주문의_롤백은_무시() {
+        //주문 트랜잭션: 10개 선점 (아직 진행 중)
+        List<TransactionSynchronization> orderTx = inTransaction(() -> ledger.reserve(1L, 10));
+        //관리자 수정 커밋: 재고 50
+        List<TransactionSynchronization> adminTx = inTransaction(() -> ledger.reset(1L, 50));
+        assertEquals("커밋 전에는 그대로", 90, ledger.getAvailable(1L));
+        adminTx.forEach(TransactionSynchronization::afterCommit);
+        assertEquals(50, ledger.getAvailable(1L));
+        verify(itemRepository).setStock(1L, 50);
+        //주문 롤백
+        orderTx.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertEquals("새 값 위에 보상하면 안 된다.", 50, ledger.getAvailable(1L));
+        ledger.flush();
+        verify(itemRepository, never()).addStock(anyLong(), anyInt());
+    }
+
+    @Test
+    public void reset_이후_주문의_롤백은_보상() {
+        ledger.reset(1L, 50); //트랜잭션 밖이면 바로 반영
+        List<TransactionSynchronization> orderTx = inTransaction(() -> ledger.reserve(1L, 10));
+        orderTx.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertEquals(50, ledger.getAvailable(1L));
+    }
+
+    @Test
+    public void 커밋부터_반영까지_들어온_주문은_새_값에서_차감() throws Exception {
+        List<TransactionSynchronization> adminTx = inTransaction(() -> ledger.reset(1L, 50));
+        adminTx.forEach(s -> s.beforeCommit(false));
+        //커밋 직후, 아직 반영 전에 들어온 주문
+        Thread order = new Thread(() -> ledger.reserve(1L, 10));
+        order.start();
+        order.join(200);
+        assertTrue("반영할 때까지 기다린다.", order.isAlive());
+        adminTx.forEach(TransactionSynchronization::afterCommit);
+        adminTx.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        order.join();
+        assertEquals(40, ledger.getAvailable(1L));
+    }
+
+    @Test
+    public void 관리자_수정이_롤백되면_원장은_그대로() {
+        List<TransactionSynchronization> adminTx = inTransaction(() -> ledger.reset(1L, 50));
+        adminTx.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertEquals(100, ledger.getAvailable(1L));
+        verify(itemRepository, never()).setStock(anyLong(), anyInt());
+    }
+
+    private List<TransactionSynchronization> inTransaction(Runnable action) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            action.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 회원 CSV 가져오기
+ * 가져오기는 별도 스레드에서 묶음마다 커밋하므로 @Transactional 을 붙이지 않는다. (이름은 매번 다르게)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class MemberImportServiceTest {
+
+    @Autowired MemberImportService memberImportService;
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    public void CSV_가져오기() throws Exception {
+        //Given
+        String prefix = "csv" + System.nanoTime() + "-";
+        Member existing = new Member();
+        existing.setName(prefix + "기존");
+        memberService.join(existing);
+        String csv = "name,city,street,zipcode\n" +
+                prefix + "a,서울,강가,123-123\n" +
+                "\"" + prefix + "b, 쉼표\",부산,,\n" +
+                ",서울,강가,123\n" +               //4: 이름 없음
+                prefix + "a,대구,1,1\n" +           //5: 파일 안 중복
+                prefix + "기존,서울,1,1\n" +        //6: DB 에 이미 있음
+                "\"" + prefix + "c,서울\n" +        //7: 따옴표가 닫히지 않음
+                prefix + "d\n";
+        MockMultipartFile file = new MockMultipartFile("file", "members.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8));
+        //When
+        MemberImportJob job = memberImportService.start(file);
+        assertTrue(job.awaitCompletion(30, TimeUnit.SECONDS));
+        //Then
+        MemberImportJob.Progress progress = job.progress();
+        assertEquals(MemberImportJob.Status.DONE, progress.getStatus());
+        assertNull(progress.getError());
+        assertEquals(7, progress.getRowsRead());
+        assertEquals(3, progress.getImported());
+        assertEquals(4, progress.getRejected());
+        assertEquals(List.of(4L, 5L, 6L, 7L), job.rejectedRows(0, 10).stream()
+                .map(MemberImportJob.RejectedRow::getLineNumber).sorted().collect(toList()));
+
+        assertEquals("부산", memberRepository.findByName(prefix + "b, 쉼표").get(0).getAddress().getCity());
+        assertEquals(1, memberRepository.findByName(prefix + "a").size());
+        assertEquals("서울", memberRepository.findByName(prefix + "a").get(0).getAddress().getCity());
+        assertEquals(1, memberRepository.findByName(prefix + "d").size());
+    }
+
+    @Test
+    public void CSV_나누기() {
+        assertEquals(List.of("a", "b,c", "d\"e", ""), MemberImportService.splitCsv("a,\"b,c\",\"d\"\"e\","));
+        assertNull(MemberImportService.splitCsv("\"a,b"));
+    }
+}
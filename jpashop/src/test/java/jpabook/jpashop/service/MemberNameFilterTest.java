@@ -0,0 +1,36 @@
+package jpabook.jpashop.service;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class MemberNameFilterTest {
+
+    @Test
+    public void 넣은_이름은_항상_있다() {
+        MemberNameFilter.Bits bits = new MemberNameFilter.Bits(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bits.put("member" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(bits.mightContain("member" + i));
+        }
+    }
+
+    @Test
+    public void 오탐률() {
+        MemberNameFilter.Bits bits = new MemberNameFilter.Bits(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bits.put("member" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (bits.mightContain("new-member" + i)) {
+                falsePositives++;
+            }
+        }
+        double rate = falsePositives / 100_000.0;
+        assertTrue("오탐률 " + rate, rate < 0.02); //목표 1%, 여유를 두고 확인
+        assertTrue(bits.expectedFpp() < 0.02);
+    }
+}
@@ -0,0 +1,73 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderExportServiceTest {
+
+    @PersistenceContext
+    EntityManager em;
+    @Autowired OrderService orderService;
+    @Autowired OrderExportService orderExportService;
+    @Autowired OrderQueryRepository orderQueryRepository;
+    @Autowired ObjectMapper objectMapper;
+
+    @Test
+    public void V7_JSON_모양은_V5와_같다() throws Exception {
+        //Given
+        Member member = new Member();
+        member.setName("회원1");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        Book book1 = createBook("시골 JPA", 10000);
+        Book book2 = createBook("시골 스프링", 20000);
+        orderService.order(member.getId(), book1.getId(), 1);
+        orderService.order(member.getId(), book2.getId(), 2);
+        em.flush();
+        em.clear();
+        //When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        orderExportService.writeOrdersJson(out);
+        JsonNode v7 = objectMapper.readTree(out.toByteArray());
+        JsonNode v5 = objectMapper.valueToTree(orderQueryRepository.findAllByDto_optimization());
+        //Then - 순서는 다를 수 있으므로 orderId 로 맞춰서 비교
+        assertEquals(v5.size(), v7.size());
+        assertEquals(byOrderId(v5), byOrderId(v7));
+    }
+
+    private Map<Long, JsonNode> byOrderId(JsonNode orders) {
+        Map<Long, JsonNode> result = new HashMap<>();
+        orders.forEach(o -> result.put(o.get("orderId").asLong(), o));
+        return result;
+    }
+
+    private Book createBook(String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(10);
+        em.persist(book);
+        return book;
+    }
+}
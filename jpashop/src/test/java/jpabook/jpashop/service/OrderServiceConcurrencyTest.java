@@ -0,0 +1,134 @@
+package jpabook.jpashop.service;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 동시 주문 테스트
+ * 각 주문이 자기 트랜잭션에서 커밋되어야 하므로 @Transactional 을 붙이지 않는다.
+ * 대신 끝나면 만든 회원, 상품, 주문을 지우고 매출 집계를 다시 만든다. (같은 H2 DB 를 쓰는 다른 테스트용)
+ * 엔티티 방식과의 처리량 비교는 OrderPlacementBenchmark (src/jmh)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderServiceConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 50;
+
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired SalesRollupService salesRollupService;
+    @Autowired DataSource dataSource;
+
+    private final List<Long> memberIds = new ArrayList<>();
+    private final List<Long> itemIds = new ArrayList<>();
+
+    @After
+    public void cleanUp() {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        for (Long memberId : memberIds) {
+            List<Long> deliveryIds = jdbc.queryForList("select delivery_id from orders where member_id = ?", Long.class, memberId);
+            jdbc.update("delete from order_item where order_id in (select order_id from orders where member_id = ?)", memberId);
+            jdbc.update("delete from order_summary where member_id = ?", memberId);
+            jdbc.update("delete from orders where member_id = ?", memberId);
+            for (Long deliveryId : deliveryIds) {
+                jdbc.update("delete from delivery where delivery_id = ?", deliveryId);
+            }
+            jdbc.update("delete from member where member_id = ?", memberId);
+        }
+        for (Long itemId : itemIds) {
+            jdbc.update("delete from item where item_id = ?", itemId);
+        }
+        salesRollupService.backfill(); //지운 주문이 매출 집계에 남지 않게 다시 만든다
+    }
+
+    @Test
+    public void 재고선점_동시주문_갱신손실없음() throws Exception {
+        //Given
+        Long memberId = createMember();
+        Long itemId = createBook(10000);
+        //When
+        runConcurrently(() -> orderService.orderWithReservation(memberId, itemId, 1));
+        //Then
+        assertEquals("선점 방식은 주문 수만큼 정확히 재고가 줄어야 한다.",
+                10000 - THREADS * ORDERS_PER_THREAD, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    @Test
+    public void 재고선점_재고초과_주문은_실패() throws Exception {
+        //Given
+        Long memberId = createMember();
+        Long itemId = createBook(100); //주문 수(400)보다 적은 재고
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger notEnough = new AtomicInteger();
+        //When
+        runConcurrently(() -> {
+            try {
+                orderService.orderWithReservation(memberId, itemId, 1);
+                success.incrementAndGet();
+            } catch (NotEnoughStockException e) {
+                notEnough.incrementAndGet();
+            }
+        });
+        //Then
+        assertEquals("재고만큼만 주문이 성공해야 한다.", 100, success.get());
+        assertEquals(THREADS * ORDERS_PER_THREAD - 100, notEnough.get());
+        assertEquals("재고는 음수가 되면 안된다.", 0, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    private void runConcurrently(Runnable order) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < ORDERS_PER_THREAD; j++) {
+                    order.run();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("동시주문회원" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+        memberIds.add(memberId);
+        return memberId;
+    }
+
+    private Long createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        itemIds.add(book.getId());
+        return book.getId();
+    }
+}
@@ -2,31 +2,53 @@ package jpabook.jpashop.service;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderSearch;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.domain.RollupDimension;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.monitor.QueryBudget;
+import jpabook.jpashop.monitor.QueryBudgetTestExecutionListener;
+import jpabook.jpashop.repository.OrderListRow;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSummaryRepository;
+import jpabook.jpashop.repository.SalesTotal;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestExecutionListeners;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.springframework.test.context.TestExecutionListeners.MergeMode.MERGE_WITH_DEFAULTS;
 @RunWith(SpringRunner.class)
 @SpringBootTest
 @Transactional
+@TestExecutionListeners(listeners = QueryBudgetTestExecutionListener.class, mergeMode = MERGE_WITH_DEFAULTS) //@QueryBudget
 public class OrderServiceTest {
     @PersistenceContext
     EntityManager em;
     @Autowired OrderService orderService;
     @Autowired OrderRepository orderRepository;
+    @Autowired OrderSummaryRepository orderSummaryRepository;
+    @Autowired SalesRollupService salesRollupService;
     @Test
+    @QueryBudget(10) //시퀀스 조회 정도만, 지연 로딩 N+1 이 생기면 실패
     public void 상품주문() throws Exception {
         //Given
         Member member = createMember();
@@ -57,6 +79,7 @@ public class OrderServiceTest {
         fail("재고 수량 부족 예외가 발생해야 한다.");
     }
     @Test
+    @QueryBudget(15) //취소는 주문을 for update 로 다시 읽으므로 그 전에 주문 insert 가 flush 된다
     public void 주문취소() {
         //Given
         Member member = createMember();
@@ -74,6 +97,139 @@ public class OrderServiceTest {
         assertEquals("주문이 취소된 상품은 그만큼 재고가 증가해야 한다.", 10,
                 item.getStockQuantity());
     }
+    @Test
+    @QueryBudget(15) //주문 2건 저장 포함, 목록은 쿼리 1번 (지연 로딩 N+1 이 생기면 실패)
+    public void 주문목록_대표상품() {
+        //Given
+        Member member = createMember();
+        Item item1 = createBook("시골 JPA", 10000, 10);
+        Item item2 = createBook("시골 스프링", 20000, 10);
+        Item item3 = createBook("시골 자바", 30000, 10);
+        Long singleOrderId = orderService.order(member.getId(), item1.getId(), 2);
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        delivery.setStatus(DeliveryStatus.READY);
+        OrderItem orderItem2 = OrderItem.createOrderItem(item2, 20000, 1);
+        OrderItem orderItem3 = OrderItem.createOrderItem(item3, 30000, 3);
+        Order multiOrder = Order.createOrder(member, delivery, orderItem2, orderItem3);
+        orderRepository.save(multiOrder);
+        em.flush();
+        //대표상품은 주문상품 id 가 가장 작은 것 (id 순서는 시퀀스 할당에 따르므로 직접 비교해서 고른다)
+        OrderItem representative = orderItem2.getId() < orderItem3.getId() ? orderItem2 : orderItem3;
+        em.clear();
+        OrderSearch orderSearch = new OrderSearch();
+        //When
+        List<OrderListRow> rows = orderRepository.findListRows(orderSearch, List.of(member.getId()));
+        //Then
+        assertEquals("주문상품이 여러 개여도 주문 1건은 1줄", 2, rows.size());
+        OrderListRow multiRow = findRow(rows, multiOrder.getId());
+        assertEquals("회원1", multiRow.getMemberName());
+        assertEquals(representative.getItem().getName(), multiRow.getItemName());
+        assertEquals(representative.getOrderPrice(), multiRow.getOrderPrice());
+        assertEquals(representative.getCount(), multiRow.getCount());
+        assertEquals(OrderStatus.ORDER, multiRow.getStatus());
+        OrderListRow singleRow = findRow(rows, singleOrderId);
+        assertEquals("시골 JPA", singleRow.getItemName());
+        assertEquals(10000, singleRow.getOrderPrice());
+        assertEquals(2, singleRow.getCount());
+    }
+    private OrderListRow findRow(List<OrderListRow> rows, Long orderId) {
+        return rows.stream()
+                .filter(r -> r.getOrderId().equals(orderId))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("주문 " + orderId + " 이 목록에 없다."));
+    }
+    @Test
+    public void 주문요약_갱신() {
+        //Given
+        Member member = createMember();
+        Item item = createBook("시골 JPA", 10000, 10);
+        //When
+        Long orderId = orderService.order(member.getId(), item.getId(), 3);
+        orderService.cancelOrder(orderId);
+        em.flush();
+        em.clear();
+        //Then
+        OrderSummary summary = orderSummaryRepository.findOne(orderId);
+        assertEquals("회원1", summary.getMemberName());
+        assertEquals(30000, summary.getTotalPrice());
+        assertEquals(1, summary.getItemCount());
+        assertEquals("취소하면 요약도 CANCEL", OrderStatus.CANCEL, summary.getStatus());
+    }
+    @Test
+    public void 대량주문취소() {
+        //Given
+        Member member = createMember();
+        Item item1 = createBook("시골 JPA", 10000, 10);
+        Item item2 = createBook("시골 스프링", 20000, 10);
+        Long orderId1 = orderService.order(member.getId(), item1.getId(), 2);
+        Long orderId2 = orderService.order(member.getId(), item1.getId(), 3);
+        Long orderId3 = orderService.order(member.getId(), item2.getId(), 4);
+        orderService.cancelOrder(orderId3); //이미 취소된 주문은 건너뛴다
+        //When
+        int canceled = orderService.cancelOrders(List.of(orderId1, orderId2, orderId3));
+        em.clear();
+        //Then
+        assertEquals(2, canceled);
+        assertEquals(OrderStatus.CANCEL, orderRepository.findOne(orderId1).getStatus());
+        assertEquals(OrderStatus.CANCEL, orderRepository.findOne(orderId2).getStatus());
+        assertEquals("상품별로 합쳐서 재고 복구", 10, em.find(Item.class, item1.getId()).getStockQuantity());
+        assertEquals("두번 복구하지 않는다", 10, em.find(Item.class, item2.getId()).getStockQuantity());
+    }
+    @Test(expected = IllegalStateException.class)
+    public void 대량주문취소_배송완료() {
+        //Given
+        Member member = createMember();
+        Item item = createBook("시골 JPA", 10000, 10);
+        Long orderId1 = orderService.order(member.getId(), item.getId(), 1);
+        Long orderId2 = orderService.order(member.getId(), item.getId(), 1);
+        orderRepository.findOne(orderId2).getDelivery().setStatus(DeliveryStatus.COMP);
+        //When
+        orderService.cancelOrders(List.of(orderId1, orderId2));
+        //Then
+        fail("배송완료된 주문이 있으면 예외가 발생해야 한다.");
+    }
+    @Test(expected = IllegalStateException.class)
+    public void 주문취소_이미취소된주문() {
+        //Given
+        Member member = createMember();
+        Item item = createBook("시골 JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), item.getId(), 2);
+        orderService.cancelOrder(orderId);
+        //When
+        orderService.cancelOrder(orderId);
+        //Then
+        fail("이미 취소된 주문은 다시 취소할 수 없어야 한다.");
+    }
+    @Test
+    public void 매출집계_주문취소() {
+        //Given
+        Member member = new Member();
+        member.setName("매출회원" + System.nanoTime()); //커밋하므로 다른 테스트의 회원 이름과 겹치지 않게
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        Item item = createBook("시골 JPA", 10000, 10);
+        LocalDate today = LocalDate.now();
+        //When
+        orderService.order(member.getId(), item.getId(), 2);
+        Long canceledId = orderService.order(member.getId(), item.getId(), 3);
+        orderService.cancelOrder(canceledId);
+        List<SalesTotal> before = salesRollupService.findTotals(RollupDimension.ITEM, today, today, 1000);
+        //변경량은 커밋된 뒤에 모였다가 flush 때 반영된다
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        salesRollupService.flush();
+        //Then
+        assertTrue("주문 트랜잭션에서는 sales_rollup 을 쓰지 않는다",
+                before.stream().noneMatch(t -> t.getDimKey().equals(String.valueOf(item.getId()))));
+        List<SalesTotal> totals = salesRollupService.findTotals(RollupDimension.ITEM, today, today, 1000);
+        SalesTotal total = totals.stream()
+                .filter(t -> t.getDimKey().equals(String.valueOf(item.getId())))
+                .findFirst().orElseThrow();
+        assertEquals("취소한 주문은 빠진다", 20000, total.getRevenue());
+        assertEquals(2, total.getQuantity());
+        assertEquals(1, total.getOrderCount());
+    }
     private Member createMember() {
         Member member = new Member();
         member.setName("회원1");